@@ -4,11 +4,11 @@
  * Measures the full async event-driven flow:
  *
  *   POST /api/reservations  (status: PENDING)
- *        ↓ Outbox → Kafka (up to 5s)
+ *        ↓ Outbox → Kafka (after-commit fast path; adaptive poller fallback, at most 5s when idle)
  *   payment-service creates Payment (status: CREATED)
  *        ↓  [this test calls confirm manually]
  *   POST /api/payments/{id}/confirm
- *        ↓ Outbox → Kafka (up to 5s)
+ *        ↓ Outbox → Kafka (after-commit fast path; adaptive poller fallback, at most 5s when idle)
  *   reservation-service updates Reservation (status: CONFIRMED)
  *
  * The timer starts before POST /api/reservations and stops when
@@ -24,6 +24,7 @@
 
 import http from 'k6/http';
 import { check, sleep } from 'k6';
+import { iterationSlot, newRunId, vuResourceId } from './lib/booking.js';
 import { Trend, Counter } from 'k6/metrics';
 
 // ── Custom metrics ────────────────────────────────────────────────────────────
@@ -60,8 +61,9 @@ export function setup() {
     { headers: { 'Content-Type': 'application/json' } },
   );
   const userId = res.json('id');
-  console.log(`Setup complete: userId=${userId}`);
-  return { userId };
+  const runId = newRunId();
+  console.log(`Setup complete: userId=${userId} runId=${runId}`);
+  return { userId, runId };
 }
 
 // ── Helper: poll until predicate returns truthy or timeout ────────────────────
@@ -78,15 +80,16 @@ function pollUntil(fn, maxMs) {
 // ── Main VU function ──────────────────────────────────────────────────────────
 export default function (data) {
   // ── Step 1: Create reservation ────────────────────────────────────────────
+  const slot = iterationSlot();
   const e2eStart = Date.now();
 
   const reservationRes = http.post(
     `${BASE_URL}/api/reservations`,
     JSON.stringify({
       userId: data.userId,
-      resourceId: Math.floor(Math.random() * 1000) + 1,
-      from: '2026-09-01T10:00',
-      to: '2026-09-01T12:00',
+      resourceId: vuResourceId(data.runId),
+      from: slot.from,
+      to: slot.to,
     }),
     { headers: { 'Content-Type': 'application/json' } },
   );
@@ -101,7 +104,7 @@ export default function (data) {
 
   // ── Step 2: Wait for payment-service to create the Payment via Kafka ──────
   // payment-service consumes ReservationCreatedEvent → creates Payment
-  // Outbox scheduler runs every 5 s, so expect 0–5 s delay + Kafka latency
+  // Outbox publishes right after commit; the adaptive poller only catches stragglers
   const paymentPhaseStart = Date.now();
 
   const paymentId = pollUntil(() => {
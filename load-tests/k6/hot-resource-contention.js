@@ -0,0 +1,126 @@
+/**
+ * k6 Load Test: Hot Resource Contention
+ *
+ * Many VUs book the same resource at once, over a small set of partly overlapping
+ * two-hour slots. reservation-service relies on a Postgres exclusion constraint,
+ * not an application lock, to keep at most one active reservation per slot:
+ *
+ *   - every request must end in 201 (booked) or 409 (overlap), never 5xx
+ *   - at the end, the active reservations of the resource must not overlap
+ *
+ * Latency is reported separately for winners and losers; a 409 costs one
+ * failed insert, so both should stay close to the uncontended create latency.
+ *
+ * Run:
+ *   k6 run load-tests/k6/hot-resource-contention.js
+ *   k6 run --env VUS=100 --env DURATION=60s load-tests/k6/hot-resource-contention.js
+ *
+ * Requires the full stack to be running:
+ *   docker-compose up -d
+ */
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend, Counter } from 'k6/metrics';
+import { newRunId, slotTime } from './lib/booking.js';
+
+// ── Custom metrics ────────────────────────────────────────────────────────────
+const bookedDuration   = new Trend('booked_ms', true);
+const conflictDuration = new Trend('conflict_ms', true);
+const booked           = new Counter('reservations_booked');
+const conflicts        = new Counter('reservations_conflicted');
+const unexpected       = new Counter('unexpected_responses');
+const overlapping      = new Counter('overlapping_active_reservations');
+
+// ── Test configuration ────────────────────────────────────────────────────────
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SLOTS    = 20; // two-hour slots on the hot resource, each also offered shifted by one hour
+
+// 409 is an expected outcome here, not a failed request
+http.setResponseCallback(http.expectedStatuses(201, 409));
+
+export const options = {
+  scenarios: {
+    hot_resource: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 50),
+      duration: __ENV.DURATION || '30s',
+    },
+  },
+  thresholds: {
+    unexpected_responses:            ['count==0'],
+    overlapping_active_reservations: ['count==0'],
+    http_req_duration:               ['p(95)<1000'],
+  },
+};
+
+// ── Setup: create one shared user and pick a fresh hot resource ──────────────
+export function setup() {
+  const res = http.post(
+    `${BASE_URL}/api/users`,
+    JSON.stringify({ email: 'loadtest-hot@example.com', fullName: 'Hot Resource User' }),
+    { headers: { 'Content-Type': 'application/json' } },
+  );
+  const userId = res.json('id');
+  const resourceId = newRunId() * 1000;
+  console.log(`Setup complete: userId=${userId} resourceId=${resourceId}`);
+  return { userId, resourceId };
+}
+
+// ── Main VU function ──────────────────────────────────────────────────────────
+export default function (data) {
+  const slot = Math.floor(Math.random() * SLOTS);
+  const shift = Math.random() < 0.5 ? 0 : 60;
+  const start = slot * 120 + shift;
+
+  const res = http.post(`${BASE_URL}/api/reservations`, JSON.stringify({
+    userId: data.userId,
+    resourceId: data.resourceId,
+    from: slotTime(start),
+    to: slotTime(start + 120),
+  }), {
+    headers: { 'Content-Type': 'application/json' },
+    tags: { name: 'create_reservation_hot' },
+  });
+
+  check(res, { 'booked or conflict (201/409)': (r) => r.status === 201 || r.status === 409 });
+
+  if (res.status === 201) {
+    booked.add(1);
+    bookedDuration.add(res.timings.duration);
+  } else if (res.status === 409) {
+    conflicts.add(1);
+    conflictDuration.add(res.timings.duration);
+  } else {
+    unexpected.add(1);
+    console.error(`Unexpected response: status=${res.status} body=${res.body}`);
+  }
+}
+
+// ── Teardown: verify no overlapping bookings, then remove test data ───────────
+export function teardown(data) {
+  const reservations = [];
+  let after = '';
+  do {
+    const page = http.get(`${BASE_URL}/api/reservations?resourceId=${data.resourceId}&limit=1000${after}`).json();
+    reservations.push(...page.items);
+    after = page.nextCursor === null ? null : `&after=${page.nextCursor}`;
+  } while (after !== null);
+
+  const active = reservations
+    .filter((r) => r.status !== 'CANCELLED' && r.status !== 'PAYMENT_FAILED')
+    .sort((a, b) => (a.from < b.from ? -1 : a.from > b.from ? 1 : 0));
+
+  for (let i = 1; i < active.length; i++) {
+    if (active[i].from < active[i - 1].to) {
+      overlapping.add(1);
+      console.error(`Overlap: reservation ${active[i - 1].id} and ${active[i].id}`);
+    }
+  }
+  console.log(`Active reservations on hot resource: ${active.length}`);
+
+  http.del(`${BASE_URL}/api/reservations`);
+  http.del(`${BASE_URL}/api/payments`);
+  http.del(`${BASE_URL}/api/users`);
+  console.log('Teardown complete: test data removed');
+}
@@ -15,6 +15,7 @@
 
 import http from 'k6/http';
 import { check, sleep } from 'k6';
+import { iterationSlot, newRunId, vuResourceId } from './lib/booking.js';
 import { Trend, Counter, Rate } from 'k6/metrics';
 
 // ── Custom metrics ────────────────────────────────────────────────────────────
@@ -82,17 +83,19 @@ export function setup() {
   }
 
   const userId = res.json('id');
-  console.log(`Setup complete: userId=${userId}`);
-  return { userId };
+  const runId = newRunId();
+  console.log(`Setup complete: userId=${userId} runId=${runId}`);
+  return { userId, runId };
 }
 
 // ── Main VU function ──────────────────────────────────────────────────────────
 export default function (data) {
+  const slot = iterationSlot();
   const payload = JSON.stringify({
     userId: data.userId,
-    resourceId: Math.floor(Math.random() * 1000) + 1,
-    from: '2026-09-01T10:00',
-    to: '2026-09-01T12:00',
+    resourceId: vuResourceId(data.runId),
+    from: slot.from,
+    to: slot.to,
   });
 
   const res = http.post(`${BASE_URL}/api/reservations`, payload, {
@@ -0,0 +1,30 @@
+/**
+ * Booking helpers shared by the k6 scripts.
+ *
+ * reservation-service rejects overlapping active reservations of one resource with
+ * 409, so throughput tests must not book the same slot twice. Each VU books its own
+ * resource, unique per run, and each iteration the next two-hour slot on it.
+ */
+
+const SLOT_BASE_MS = Date.UTC(2030, 0, 1);
+
+/** Run id for setup() to return; keeps resources of different runs apart. */
+export function newRunId() {
+  return Math.floor(Date.now() / 1000);
+}
+
+/** Resource booked by the current VU in the given run. */
+export function vuResourceId(runId) {
+  return runId * 1000 + __VU;
+}
+
+/** LocalDateTime string (yyyy-MM-ddTHH:mm) `offsetMinutes` after the slot base. */
+export function slotTime(offsetMinutes) {
+  return new Date(SLOT_BASE_MS + offsetMinutes * 60 * 1000).toISOString().substring(0, 16);
+}
+
+/** Non-overlapping two-hour slot for the current VU iteration. */
+export function iterationSlot() {
+  const startMinutes = __ITER * 120;
+  return { from: slotTime(startMinutes), to: slotTime(startMinutes + 120) };
+}
@@ -14,6 +14,7 @@
 # Output (in load-tests/results/):
 #   latency-throughput.json  – raw k6 output for latency & throughput test
 #   e2e-time.json            – raw k6 output for end-to-end time test
+#   hot-resource-contention.json – raw k6 output for the double-booking contention test
 #   docker-stats-*.csv       – container resource usage during tests
 
 set -euo pipefail
@@ -35,7 +36,7 @@ echo "============================================================"
 
 # ── Wait for gateway to be ready ─────────────────────────────────────────────
 echo ""
-echo "[1/4] Waiting for services to be healthy..."
+echo "[1/5] Waiting for services to be healthy..."
 for i in $(seq 1 30); do
   if curl -sf "${BASE_URL}/actuator/health" > /dev/null 2>&1; then
     echo "      Services are up."
@@ -48,7 +49,7 @@ done
 # ── Start resource collection in background ───────────────────────────────────
 STATS_FILE="${RESULTS_DIR}/docker-stats-$(date +%Y%m%d_%H%M%S).csv"
 echo ""
-echo "[2/4] Starting Docker stats collection → ${STATS_FILE}"
+echo "[2/5] Starting Docker stats collection → ${STATS_FILE}"
 bash "${SCRIPT_DIR}/collect-docker-stats.sh" 2 "$STATS_FILE" &
 STATS_PID=$!
 trap "kill $STATS_PID 2>/dev/null; echo 'Stats collection stopped.'" EXIT INT TERM
@@ -57,7 +58,7 @@ sleep 2  # let stats collector write the header
 
 # ── Test 1: Latency & Throughput ─────────────────────────────────────────────
 echo ""
-echo "[3/4] Running LATENCY & THROUGHPUT test..."
+echo "[3/5] Running LATENCY & THROUGHPUT test..."
 k6 run \
   --env BASE_URL="${BASE_URL}" \
   --out "json=${RESULTS_DIR}/latency-throughput.json" \
@@ -68,7 +69,7 @@ echo "      Done. Summary → ${RESULTS_DIR}/latency-throughput-summary.json"
 
 # ── Test 2: End-to-End Time ───────────────────────────────────────────────────
 echo ""
-echo "[4/4] Running END-TO-END TIME test..."
+echo "[4/5] Running END-TO-END TIME test..."
 k6 run \
   --env BASE_URL="${BASE_URL}" \
   --env PAYMENT_URL="${PAYMENT_URL}" \
@@ -78,6 +79,17 @@ k6 run \
 
 echo "      Done. Summary → ${RESULTS_DIR}/e2e-time-summary.json"
 
+# ── Test 3: Hot Resource Contention ───────────────────────────────────────────
+echo ""
+echo "[5/5] Running HOT RESOURCE CONTENTION test..."
+k6 run \
+  --env BASE_URL="${BASE_URL}" \
+  --out "json=${RESULTS_DIR}/hot-resource-contention.json" \
+  --summary-export "${RESULTS_DIR}/hot-resource-contention-summary.json" \
+  "${K6_SCRIPTS}/hot-resource-contention.js"
+
+echo "      Done. Summary → ${RESULTS_DIR}/hot-resource-contention-summary.json"
+
 # ── Done ──────────────────────────────────────────────────────────────────────
 kill "$STATS_PID" 2>/dev/null || true
 echo ""
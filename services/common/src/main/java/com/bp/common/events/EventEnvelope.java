@@ -0,0 +1,113 @@
+package com.bp.common.events;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Metadata every event carries next to its payload, as Kafka record headers.
+ * <p>
+ * Keeping it out of the event records means JSON and binary payloads share it and
+ * existing consumers are unaffected. Timestamps are epoch milliseconds; any field
+ * may be {@code null} on records produced before the envelope existed.
+ *
+ * @param eventId       unique per event and stable across redeliveries, usable for deduplication
+ * @param correlationId ties together the events of one business flow
+ * @param occurredAt    when the business change happened
+ * @param enqueuedAt    when the event was written to the outbox
+ * @param publishedAt   when the event was handed to the Kafka producer
+ */
+public record EventEnvelope(
+        String eventId,
+        String correlationId,
+        Instant occurredAt,
+        Instant enqueuedAt,
+        Instant publishedAt
+) {
+
+    /**
+     * The constant EVENT_ID header.
+     */
+    public static final String EVENT_ID = "eventId";
+    /**
+     * The constant CORRELATION_ID header.
+     */
+    public static final String CORRELATION_ID = "correlationId";
+    /**
+     * The constant OCCURRED_AT header.
+     */
+    public static final String OCCURRED_AT = "occurredAt";
+    /**
+     * The constant ENQUEUED_AT header.
+     */
+    public static final String ENQUEUED_AT = "enqueuedAt";
+    /**
+     * The constant PUBLISHED_AT header.
+     */
+    public static final String PUBLISHED_AT = "publishedAt";
+
+    /**
+     * Reads the envelope from record headers.
+     *
+     * @param headers the headers
+     * @return the envelope, with {@code null} for every header that is absent or unreadable
+     */
+    public static EventEnvelope from(Headers headers) {
+        return new EventEnvelope(
+                text(headers, EVENT_ID),
+                text(headers, CORRELATION_ID),
+                instant(headers, OCCURRED_AT),
+                instant(headers, ENQUEUED_AT),
+                instant(headers, PUBLISHED_AT)
+        );
+    }
+
+    /**
+     * Copy of this envelope with the publish time set.
+     *
+     * @param publishedAt the publish time
+     * @return the envelope
+     */
+    public EventEnvelope withPublishedAt(Instant publishedAt) {
+        return new EventEnvelope(eventId, correlationId, occurredAt, enqueuedAt, publishedAt);
+    }
+
+    /**
+     * Writes the non-null fields as headers, replacing any earlier values.
+     *
+     * @param headers the headers
+     */
+    public void writeTo(Headers headers) {
+        put(headers, EVENT_ID, eventId);
+        put(headers, CORRELATION_ID, correlationId);
+        put(headers, OCCURRED_AT, occurredAt == null ? null : String.valueOf(occurredAt.toEpochMilli()));
+        put(headers, ENQUEUED_AT, enqueuedAt == null ? null : String.valueOf(enqueuedAt.toEpochMilli()));
+        put(headers, PUBLISHED_AT, publishedAt == null ? null : String.valueOf(publishedAt.toEpochMilli()));
+    }
+
+    private static void put(Headers headers, String name, String value) {
+        if (value != null) {
+            headers.remove(name);
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String text(Headers headers, String name) {
+        Header header = headers == null ? null : headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static Instant instant(Headers headers, String name) {
+        String value = text(headers, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
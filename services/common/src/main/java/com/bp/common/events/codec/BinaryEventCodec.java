@@ -0,0 +1,266 @@
+package com.bp.common.events.codec;
+
+import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.events.ReservationCreatedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding for the {@code com.bp.common.events} records.
+ * <p>
+ * Layout: magic byte, schema version, type tag, a null bitmask for the record's
+ * components, then each non-null component in declaration order. Longs are
+ * zigzag varints, {@code LocalDateTime} is epoch seconds (UTC) plus nanos,
+ * strings are length-prefixed UTF-8 and {@link PaymentStatus} is a fixed code.
+ * <p>
+ * Type tags and enum codes are part of the wire format: never renumber them,
+ * only append. A new component bumps {@link #SCHEMA_VERSION} and is appended at
+ * the end, so an older reader can still decode the fields it knows.
+ */
+public final class BinaryEventCodec {
+
+    /**
+     * First byte of every payload; a JSON payload never starts with it.
+     */
+    static final byte MAGIC = (byte) 0xBE;
+
+    /**
+     * Schema version written by this codec.
+     */
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final byte RESERVATION_CREATED = 1;
+    private static final byte PAYMENT_CONFIRMED = 2;
+    private static final byte PAYMENT_FAILED = 3;
+
+    private BinaryEventCodec() {
+    }
+
+    /**
+     * Whether the given event type has a binary encoding.
+     *
+     * @param eventClass the event class
+     * @return true if {@link #encode(Object)} accepts it
+     */
+    public static boolean supports(Class<?> eventClass) {
+        return eventClass == ReservationCreatedEvent.class
+                || eventClass == PaymentConfirmedEvent.class
+                || eventClass == PaymentFailedEvent.class;
+    }
+
+    /**
+     * Encodes an event.
+     *
+     * @param event the event
+     * @return the encoded bytes
+     * @throws SerializationException if the event type has no binary encoding
+     */
+    public static byte[] encode(Object event) {
+        Writer out = new Writer();
+        if (event instanceof ReservationCreatedEvent e) {
+            out.header(RESERVATION_CREATED, e.reservationId(), e.userId(), e.resourceId(), e.from(), e.to());
+            out.writeLong(e.reservationId());
+            out.writeLong(e.userId());
+            out.writeLong(e.resourceId());
+            out.writeDateTime(e.from());
+            out.writeDateTime(e.to());
+        } else if (event instanceof PaymentConfirmedEvent e) {
+            out.header(PAYMENT_CONFIRMED, e.paymentId(), e.reservationId(), e.status());
+            out.writeLong(e.paymentId());
+            out.writeLong(e.reservationId());
+            if (e.status() != null) {
+                out.writeByte(statusCode(e.status()));
+            }
+        } else if (event instanceof PaymentFailedEvent e) {
+            out.header(PAYMENT_FAILED, e.paymentId(), e.reservationId(), e.reason());
+            out.writeLong(e.paymentId());
+            out.writeLong(e.reservationId());
+            out.writeString(e.reason());
+        } else {
+            throw new SerializationException("No binary encoding for "
+                    + (event == null ? "null" : event.getClass().getName()));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an event. Payloads from a newer schema version decode as well; the
+     * components appended after the ones this version knows are skipped.
+     *
+     * @param data the encoded bytes
+     * @return the event
+     * @throws SerializationException if the payload is not a known binary event
+     */
+    public static Object decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new SerializationException("Not a binary event payload");
+        }
+        int version = in.readByte();
+        if (version < 1) {
+            throw new SerializationException("Unsupported event schema version " + version);
+        }
+        byte type = in.readByte();
+        in.nulls = in.readByte() & 0xFF;
+
+        return switch (type) {
+            case RESERVATION_CREATED -> new ReservationCreatedEvent(
+                    in.readLong(), in.readLong(), in.readLong(), in.readDateTime(), in.readDateTime());
+            case PAYMENT_CONFIRMED -> new PaymentConfirmedEvent(
+                    in.readLong(), in.readLong(), in.isNull() ? null : statusOf(in.readByte()));
+            case PAYMENT_FAILED -> new PaymentFailedEvent(
+                    in.readLong(), in.readLong(), in.readString());
+            default -> throw new SerializationException("Unknown binary event type " + type);
+        };
+    }
+
+    private static byte statusCode(PaymentStatus status) {
+        return switch (status) {
+            case CONFIRMED -> 1;
+            case FAILED -> 2;
+        };
+    }
+
+    private static PaymentStatus statusOf(byte code) {
+        return switch (code) {
+            case 1 -> PaymentStatus.CONFIRMED;
+            case 2 -> PaymentStatus.FAILED;
+            default -> throw new SerializationException("Unknown payment status code " + code);
+        };
+    }
+
+    private static final class Writer {
+
+        private byte[] buf = new byte[32];
+        private int pos;
+
+        void header(byte type, Object... components) {
+            int nulls = 0;
+            for (int i = 0; i < components.length; i++) {
+                if (components[i] == null) {
+                    nulls |= 1 << i;
+                }
+            }
+            writeByte(MAGIC);
+            writeByte((byte) SCHEMA_VERSION);
+            writeByte(type);
+            writeByte((byte) nulls);
+        }
+
+        void writeByte(byte b) {
+            if (pos == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[pos++] = b;
+        }
+
+        void writeLong(Long value) {
+            if (value != null) {
+                writeVarLong((value << 1) ^ (value >> 63));
+            }
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            if (value != null) {
+                writeLong(value.toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(value.getNano());
+            }
+        }
+
+        void writeString(String value) {
+            if (value != null) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(utf8.length);
+                for (byte b : utf8) {
+                    writeByte(b);
+                }
+            }
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((byte) value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int pos;
+        private int nulls;
+        private int component;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (data == null || pos >= data.length) {
+                throw new SerializationException("Truncated binary event payload");
+            }
+            return data[pos++];
+        }
+
+        /**
+         * Whether the next component is null; advances to the following one.
+         */
+        boolean isNull() {
+            return (nulls & (1 << component++)) != 0;
+        }
+
+        Long readLong() {
+            if (isNull()) {
+                return null;
+            }
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        LocalDateTime readDateTime() {
+            if (isNull()) {
+                return null;
+            }
+            long raw = readVarLong();
+            long seconds = (raw >>> 1) ^ -(raw & 1);
+            return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(), ZoneOffset.UTC);
+        }
+
+        String readString() {
+            if (isNull()) {
+                return null;
+            }
+            int length = (int) readVarLong();
+            if (length < 0 || length > data.length - pos) {
+                throw new SerializationException("Truncated binary event payload");
+            }
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in binary event payload");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bp.common.events.codec;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire formats an event can travel in, announced through the {@value #HEADER} record header.
+ * <p>
+ * A record without the header is JSON, so producers that predate the binary
+ * encoding need no change while topics are switched over one by one.
+ */
+public final class EventContentType {
+
+    /**
+     * Record header carrying the content type.
+     */
+    public static final String HEADER = "contentType";
+
+    /**
+     * Jackson JSON, the original format.
+     */
+    public static final String JSON = "application/json";
+
+    /**
+     * {@link BinaryEventCodec} encoding; the schema version travels inside the payload.
+     */
+    public static final String BINARY = "application/vnd.bp.event+binary";
+
+    private EventContentType() {
+    }
+
+    /**
+     * Whether the record announces the binary encoding. The last header wins, so a
+     * republished record can override the content type it was first produced with.
+     *
+     * @param headers the record headers
+     * @return true for binary, false for JSON or no header
+     */
+    public static boolean isBinary(Headers headers) {
+        if (headers == null) {
+            return false;
+        }
+        Header header = headers.lastHeader(HEADER);
+        return header != null && BINARY.equals(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Header value bytes for the given content type.
+     *
+     * @param contentType the content type
+     * @return the header value
+     */
+    public static byte[] headerValue(String contentType) {
+        return contentType.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.bp.common.events.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Value deserializer that picks the wire format per record from the
+ * {@value EventContentType#HEADER} header.
+ * <p>
+ * Binary records go through {@link BinaryEventCodec}; everything else goes to a
+ * {@link JsonDeserializer} configured from the same {@code spring.json.*}
+ * properties as before, so a topic can carry both formats while it is switched over.
+ */
+public class NegotiatingEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data != null && EventContentType.isBinary(headers)) {
+            return BinaryEventCodec.decode(data);
+        }
+        return json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.bp.common.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Wires the idempotent consumer.
+ * <p>
+ * A service imports this configuration next to its Kafka consumer configuration;
+ * listeners then hand each record's event id to {@link IdempotentConsumer}.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfiguration {
+
+    /**
+     * Processed event store.
+     *
+     * @param jdbcTemplate the jdbc template
+     * @return the processed event store
+     */
+    @Bean
+    public ProcessedEventStore processedEventStore(JdbcTemplate jdbcTemplate) {
+        return new ProcessedEventStore(jdbcTemplate);
+    }
+
+    /**
+     * Idempotent consumer.
+     *
+     * @param store              the processed event store
+     * @param transactionManager the transaction manager
+     * @param properties         the properties
+     * @param meterRegistry      the meter registry
+     * @return the idempotent consumer
+     */
+    @Bean
+    public IdempotentConsumer idempotentConsumer(
+            ProcessedEventStore store,
+            PlatformTransactionManager transactionManager,
+            IdempotencyProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new IdempotentConsumer(
+                store, new TransactionTemplate(transactionManager), properties.getCacheSize(), meterRegistry);
+    }
+
+    /**
+     * Processed event retention job.
+     *
+     * @param store      the processed event store
+     * @param properties the properties
+     * @return the processed event retention job
+     */
+    @Bean
+    public ProcessedEventRetentionJob processedEventRetentionJob(ProcessedEventStore store, IdempotencyProperties properties) {
+        return new ProcessedEventRetentionJob(store, properties.getRetention());
+    }
+}
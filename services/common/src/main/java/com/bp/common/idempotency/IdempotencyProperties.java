@@ -0,0 +1,48 @@
+package com.bp.common.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Idempotent consumer tuning, bound from {@code app.idempotency.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Recently processed event ids kept in memory; a hit drops the record without a query.
+     */
+    private int cacheSize = 100_000;
+
+    private final Retention retention = new Retention();
+
+    /**
+     * Purging old processed_events rows.
+     */
+    @Data
+    public static class Retention {
+        private boolean enabled = true;
+
+        /**
+         * How often a purge run starts; read by the scheduler.
+         */
+        private long fixedDelayMs = 3_600_000;
+
+        /**
+         * Rows older than this are purged. Must exceed the longest redelivery window,
+         * including the last retry tier and consumer lag.
+         */
+        private long maxAgeHours = 168;
+
+        /**
+         * Rows deleted per statement.
+         */
+        private int chunkSize = 5000;
+
+        /**
+         * A run yields after this many chunks; the rest waits for the next run.
+         */
+        private int maxChunksPerRun = 20;
+    }
+}
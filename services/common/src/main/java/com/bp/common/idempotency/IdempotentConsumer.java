@@ -0,0 +1,184 @@
+package com.bp.common.idempotency;
+
+import com.bp.common.events.EventEnvelope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Runs each event's handler at most once per service, keyed by the envelope's event id.
+ * <p>
+ * An id seen recently is dropped straight from memory. Otherwise it is inserted into
+ * {@link ProcessedEventStore} in the same transaction as the handler: a conflict
+ * means another delivery got there first and the handler is skipped; a handler
+ * failure rolls the row back so the retry runs again. Records without an event id,
+ * produced before the envelope existed, are always handled.
+ */
+@Slf4j
+public class IdempotentConsumer {
+
+    private final ProcessedEventStore store;
+    private final TransactionOperations transactions;
+    private final RecentEventIds recent;
+    private final Counter cacheDuplicates;
+    private final Counter storeDuplicates;
+
+    /**
+     * Instantiates a new Idempotent consumer.
+     *
+     * @param store         the processed event store
+     * @param transactions  the transaction template the handler runs in
+     * @param cacheSize     the number of recent event ids kept in memory
+     * @param meterRegistry the meter registry
+     */
+    public IdempotentConsumer(
+            ProcessedEventStore store,
+            TransactionOperations transactions,
+            int cacheSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.store = store;
+        this.transactions = transactions;
+        this.recent = new RecentEventIds(cacheSize);
+        this.cacheDuplicates = Counter.builder("idempotency.duplicates")
+                .description("Redelivered events dropped without running their handler")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        this.storeDuplicates = Counter.builder("idempotency.duplicates")
+                .description("Redelivered events dropped without running their handler")
+                .tag("source", "store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Handles one event unless it was processed before.
+     *
+     * @param <T>     the event type
+     * @param eventId the event id, or {@code null} if the record has none
+     * @param event   the event
+     * @param handler the handler; runs inside the transaction that records the id
+     */
+    public <T> void handle(String eventId, T event, Consumer<? super T> handler) {
+        if (eventId == null) {
+            handler.accept(event);
+            return;
+        }
+        if (recent.contains(eventId)) {
+            cacheDuplicates.increment();
+            log.debug("Duplicate event {} dropped from cache", eventId);
+            return;
+        }
+        transactions.executeWithoutResult(status -> {
+            if (store.insertNew(List.of(eventId)).isEmpty()) {
+                storeDuplicates.increment();
+                log.debug("Duplicate event {} dropped by store", eventId);
+                return;
+            }
+            handler.accept(event);
+            rememberAfterCommit(List.of(eventId));
+        });
+    }
+
+    /**
+     * Handles the events of one poll that were not processed before, with a single
+     * insert for all ids and a single call to the bulk handler, in one transaction.
+     *
+     * @param <T>         the event type
+     * @param eventIds    the event ids, aligned with {@code events}; entries may be {@code null}
+     * @param events      the events
+     * @param bulkHandler the handler for the remaining events, in their original order
+     */
+    public <T> void handleAll(List<String> eventIds, List<T> events, Consumer<? super List<T>> bulkHandler) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String eventId : eventIds) {
+            if (eventId != null && !recent.contains(eventId)) {
+                candidates.add(eventId);
+            }
+        }
+
+        transactions.executeWithoutResult(status -> {
+            Set<String> fresh = candidates.isEmpty() ? Set.of() : store.insertNew(candidates);
+            Set<String> taken = new HashSet<>();
+            List<T> toHandle = new ArrayList<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                String eventId = i < eventIds.size() ? eventIds.get(i) : null;
+                if (eventId == null) {
+                    toHandle.add(events.get(i));
+                } else if (fresh.contains(eventId) && taken.add(eventId)) {
+                    toHandle.add(events.get(i));
+                } else if (candidates.contains(eventId)) {
+                    storeDuplicates.increment();
+                } else {
+                    cacheDuplicates.increment();
+                }
+            }
+            if (toHandle.size() < events.size()) {
+                log.info("Dropped {} duplicate events of {}", events.size() - toHandle.size(), events.size());
+            }
+            if (!toHandle.isEmpty()) {
+                bulkHandler.accept(toHandle);
+            }
+            rememberAfterCommit(fresh);
+        });
+    }
+
+    /**
+     * Event ids of a batch, read from the per-record headers Spring Kafka hands a
+     * batch listener under {@code KafkaHeaders.BATCH_CONVERTED_HEADERS}.
+     *
+     * @param convertedHeaders the converted headers, one map per record
+     * @return the event ids, {@code null} where a record has none
+     */
+    public static List<String> eventIds(List<Map<String, Object>> convertedHeaders) {
+        if (convertedHeaders == null) {
+            return List.of();
+        }
+        List<String> eventIds = new ArrayList<>(convertedHeaders.size());
+        for (Map<String, Object> headers : convertedHeaders) {
+            eventIds.add(eventId(headers == null ? null : headers.get(EventEnvelope.EVENT_ID)));
+        }
+        return eventIds;
+    }
+
+    /**
+     * Event id from a mapped header value, which arrives as raw bytes.
+     *
+     * @param headerValue the header value
+     * @return the event id, or {@code null}
+     */
+    public static String eventId(Object headerValue) {
+        if (headerValue instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return headerValue instanceof String text ? text : null;
+    }
+
+    private void rememberAfterCommit(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recent.addAll(eventIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.addAll(eventIds);
+            }
+        });
+    }
+}
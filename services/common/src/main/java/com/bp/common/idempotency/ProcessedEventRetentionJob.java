@@ -0,0 +1,57 @@
+package com.bp.common.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Purges {@code processed_events} rows once no redelivery can still carry their id.
+ * Rows go in chunks, each its own statement; a run stops after a bounded number of
+ * chunks and leaves any backlog for the next one.
+ */
+@Slf4j
+public class ProcessedEventRetentionJob {
+
+    private final ProcessedEventStore store;
+    private final IdempotencyProperties.Retention retention;
+
+    /**
+     * Instantiates a new Processed event retention job.
+     *
+     * @param store     the processed event store
+     * @param retention the retention settings
+     */
+    public ProcessedEventRetentionJob(ProcessedEventStore store, IdempotencyProperties.Retention retention) {
+        this.store = store;
+        this.retention = retention;
+    }
+
+    /**
+     * Purge expired rows.
+     *
+     * @return the number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.retention.fixed-delay-ms:3600000}")
+    public int purgeProcessedEvents() {
+        if (!retention.isEnabled()) {
+            return 0;
+        }
+
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retention.getMaxAgeHours()));
+        int total = 0;
+        for (int chunk = 0; chunk < retention.getMaxChunksPerRun(); chunk++) {
+            int deleted = store.purgeProcessedBefore(cutoff, retention.getChunkSize());
+            total += deleted;
+            if (deleted < retention.getChunkSize()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Idempotency retention: purged {} processed events older than {}", total, cutoff);
+        }
+        return total;
+    }
+}
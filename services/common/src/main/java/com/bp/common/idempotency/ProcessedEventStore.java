@@ -0,0 +1,87 @@
+package com.bp.common.idempotency;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@code processed_events} table: one row per event id a service has handled.
+ * <p>
+ * Writes go through the caller's transaction, so a row exists exactly when the
+ * handler's own changes were committed. The table is shared by all listeners of a
+ * service and created on startup if missing.
+ */
+public class ProcessedEventStore implements InitializingBean {
+
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantiates a new Processed event store.
+     *
+     * @param jdbcTemplate the jdbc template
+     */
+    public ProcessedEventStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS processed_events (
+                    event_id     VARCHAR(64) PRIMARY KEY,
+                    processed_at TIMESTAMP   NOT NULL
+                )""");
+        jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS idx_processed_events_processed_at ON processed_events (processed_at)");
+    }
+
+    /**
+     * Records the given event ids as processed.
+     *
+     * @param eventIds the event ids, without duplicates
+     * @return the ids that were not recorded before
+     */
+    public Set<String> insertNew(Collection<String> eventIds) {
+        Set<String> inserted = new HashSet<>();
+        List<String> ids = new ArrayList<>(eventIds);
+        Timestamp now = Timestamp.from(Instant.now());
+
+        for (int from = 0; from < ids.size(); from += MAX_ROWS_PER_INSERT) {
+            List<String> chunk = ids.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, ids.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO processed_events (event_id, processed_at) VALUES ");
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[i * 2] = chunk.get(i);
+                args[i * 2 + 1] = now;
+            }
+            sql.append(" ON CONFLICT (event_id) DO NOTHING RETURNING event_id");
+            inserted.addAll(jdbcTemplate.queryForList(sql.toString(), String.class, args));
+        }
+        return inserted;
+    }
+
+    /**
+     * Deletes up to {@code limit} rows processed before the cutoff.
+     *
+     * @param cutoff the cutoff
+     * @param limit  the max rows to delete
+     * @return the number of rows deleted
+     */
+    public int purgeProcessedBefore(Instant cutoff, int limit) {
+        return jdbcTemplate.update("""
+                DELETE FROM processed_events
+                WHERE event_id IN (
+                    SELECT event_id FROM processed_events WHERE processed_at < ? LIMIT ?
+                )""", Timestamp.from(cutoff), limit);
+    }
+}
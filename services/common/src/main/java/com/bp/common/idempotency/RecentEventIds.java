@@ -0,0 +1,38 @@
+package com.bp.common.idempotency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded set of the most recently processed event ids, oldest evicted first.
+ * <p>
+ * Only ids whose transaction has committed are added, so a hit is always a true
+ * duplicate; a miss just means the store has to decide.
+ */
+class RecentEventIds {
+
+    private final Map<String, Boolean> ids;
+
+    RecentEventIds(int capacity) {
+        this.ids = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized boolean contains(String eventId) {
+        return ids.containsKey(eventId);
+    }
+
+    synchronized void addAll(Iterable<String> eventIds) {
+        for (String eventId : eventIds) {
+            ids.put(eventId, Boolean.TRUE);
+        }
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,147 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the lag of every consumer group of the service as the gauge
+ * {@code kafka.consumer.lag{group, topic, partition}}: each partition's end offset
+ * minus the offset the group has committed, refreshed from the broker on a fixed
+ * interval.
+ * <p>
+ * Reading committed offsets from the broker rather than from the consumers keeps
+ * the gauge moving when a listener is stuck or its consumer has left the group,
+ * which is exactly when the lag matters. Partitions the group never committed are
+ * not reported.
+ */
+@Slf4j
+public class ConsumerLagMonitor implements SmartLifecycle {
+
+    private final KafkaAdmin kafkaAdmin;
+    private final Supplier<Collection<String>> groupIds;
+    private final long refreshMs;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicLong> lagByPartition = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private AdminClient adminClient;
+    private volatile boolean running;
+
+    /**
+     * Instantiates a new Consumer lag monitor.
+     *
+     * @param kafkaAdmin    the kafka admin
+     * @param groupIds      the consumer groups to report, read on every refresh
+     * @param refreshMs     the refresh interval
+     * @param meterRegistry the meter registry
+     */
+    public ConsumerLagMonitor(
+            KafkaAdmin kafkaAdmin,
+            Supplier<Collection<String>> groupIds,
+            long refreshMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.groupIds = groupIds;
+        this.refreshMs = refreshMs;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(1);
+        this.scheduler.setThreadNamePrefix("kafka-consumer-lag-");
+    }
+
+    /**
+     * Refresh the lag gauges from the broker.
+     */
+    public void refresh() {
+        try {
+            Map<String, Map<TopicPartition, OffsetAndMetadata>> committedByGroup = new HashMap<>();
+            Set<TopicPartition> partitions = new LinkedHashSet<>();
+            for (String groupId : new LinkedHashSet<>(groupIds.get())) {
+                Map<TopicPartition, OffsetAndMetadata> committed = adminClient
+                        .listConsumerGroupOffsets(groupId)
+                        .partitionsToOffsetAndMetadata()
+                        .get(refreshMs, TimeUnit.MILLISECONDS);
+                committedByGroup.put(groupId, committed);
+                partitions.addAll(committed.keySet());
+            }
+            if (partitions.isEmpty()) {
+                return;
+            }
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = adminClient
+                    .listOffsets(partitions.stream().collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest())))
+                    .all()
+                    .get(refreshMs, TimeUnit.MILLISECONDS);
+
+            committedByGroup.forEach((groupId, committed) -> committed.forEach((partition, offset) -> {
+                ListOffsetsResult.ListOffsetsResultInfo end = ends.get(partition);
+                if (end != null && offset != null) {
+                    gauge(groupId, partition).set(Math.max(0, end.offset() - offset.offset()));
+                }
+            }));
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Consumer lag refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::refresh, Duration.ofMillis(refreshMs));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        if (adminClient != null) {
+            adminClient.close(Duration.ofSeconds(5));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private AtomicLong gauge(String groupId, TopicPartition partition) {
+        return lagByPartition.computeIfAbsent(groupId + '|' + partition, k -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("kafka.consumer.lag", lag, AtomicLong::get)
+                    .description("Records on a partition not yet committed by a consumer group")
+                    .tag("group", groupId)
+                    .tag("topic", partition.topic())
+                    .tag("partition", String.valueOf(partition.partition()))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.bp.common.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Warns at startup when a consumer group would run more consumers on a topic than
+ * the topic has partitions. The extra consumers get no assignment and sit idle,
+ * so scaling out further adds no throughput.
+ * <p>
+ * Consumers per group are counted as listener concurrency times the configured
+ * number of instances; partition counts come from the broker.
+ */
+@Slf4j
+public class ConsumerPartitionCheck {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaScalingProperties properties;
+
+    /**
+     * Instantiates a new Consumer partition check.
+     *
+     * @param listenerRegistry the listener registry
+     * @param kafkaAdmin       the kafka admin
+     * @param properties       the scaling properties
+     */
+    public ConsumerPartitionCheck(
+            KafkaListenerEndpointRegistry listenerRegistry,
+            KafkaAdmin kafkaAdmin,
+            KafkaScalingProperties properties
+    ) {
+        this.listenerRegistry = listenerRegistry;
+        this.kafkaAdmin = kafkaAdmin;
+        this.properties = properties;
+    }
+
+    /**
+     * Run the check once the listener containers have started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        try {
+            findOversubscribed().forEach(log::warn);
+        } catch (RuntimeException e) {
+            log.warn("Kafka partition check skipped, topics could not be described: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Describe every group/topic pair whose consumers outnumber the topic's partitions.
+     *
+     * @return one warning per oversubscribed pair
+     */
+    public List<String> findOversubscribed() {
+        Map<String, Integer> consumers = consumersPerGroupAndTopic();
+        if (consumers.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, TopicDescription> topics = kafkaAdmin.describeTopics(consumers.keySet().stream()
+                .map(ConsumerPartitionCheck::topicOf)
+                .distinct()
+                .toArray(String[]::new));
+
+        List<String> warnings = new ArrayList<>();
+        consumers.forEach((groupAndTopic, count) -> {
+            TopicDescription topic = topics.get(topicOf(groupAndTopic));
+            if (topic == null) {
+                return;
+            }
+            int partitions = topic.partitions().size();
+            if (count > partitions) {
+                warnings.add(String.format(
+                        "Consumer group '%s' runs %d consumers on topic '%s' but it has only %d partitions; "
+                                + "%d will stay idle. Raise app.kafka.scaling.partitions or lower listener concurrency.",
+                        groupOf(groupAndTopic), count, topic.name(), partitions, count - partitions));
+            }
+        });
+        return warnings;
+    }
+
+    private Map<String, Integer> consumersPerGroupAndTopic() {
+        Map<String, Integer> consumers = new TreeMap<>();
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (!container.isRunning() || topics == null) {
+                continue;
+            }
+            int concurrency = container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent
+                    ? concurrent.getConcurrency()
+                    : 1;
+            for (String topic : topics) {
+                consumers.merge(container.getGroupId() + "/" + topic,
+                        concurrency * Math.max(1, properties.getInstances()), Integer::sum);
+            }
+        }
+        return consumers;
+    }
+
+    private static String groupOf(String groupAndTopic) {
+        return groupAndTopic.substring(0, groupAndTopic.indexOf('/'));
+    }
+
+    private static String topicOf(String groupAndTopic) {
+        return groupAndTopic.substring(groupAndTopic.indexOf('/') + 1);
+    }
+}
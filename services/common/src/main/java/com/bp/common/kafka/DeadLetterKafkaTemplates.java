@@ -0,0 +1,68 @@
+package com.bp.common.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The templates failed records are republished with, by value type.
+ * <p>
+ * A record an {@code ErrorHandlingDeserializer} could not read is republished with
+ * the bytes it arrived with. Those go through a {@code ByteArraySerializer} template,
+ * so the retry tiers and the DLT get them unchanged rather than as a JSON string.
+ * Every other value goes through the shared JSON template.
+ */
+public class DeadLetterKafkaTemplates implements DisposableBean {
+
+    private final KafkaTemplate<String, byte[]> bytesKafkaTemplate;
+    private final Map<Class<?>, KafkaOperations<?, ?>> templates;
+
+    /**
+     * Instantiates a new Dead letter kafka templates.
+     *
+     * @param kafkaTemplate the shared JSON template, whose producer settings are reused
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DeadLetterKafkaTemplates(KafkaTemplate<String, Object> kafkaTemplate) {
+        this((KafkaTemplate<String, byte[]>) new KafkaTemplate(
+                kafkaTemplate.getProducerFactory(),
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)
+        ), kafkaTemplate);
+    }
+
+    /**
+     * Instantiates a new Dead letter kafka templates.
+     *
+     * @param bytesKafkaTemplate the template for raw bytes
+     * @param kafkaTemplate      the template for every other value
+     */
+    public DeadLetterKafkaTemplates(KafkaTemplate<String, byte[]> bytesKafkaTemplate, KafkaOperations<String, Object> kafkaTemplate) {
+        this.bytesKafkaTemplate = bytesKafkaTemplate;
+        // Matched in order, so the byte[] template must come before the catch-all
+        Map<Class<?>, KafkaOperations<?, ?>> byType = new LinkedHashMap<>();
+        byType.put(byte[].class, bytesKafkaTemplate);
+        byType.put(Object.class, kafkaTemplate);
+        this.templates = Collections.unmodifiableMap(byType);
+    }
+
+    /**
+     * The templates by value type, in the order they are matched.
+     *
+     * @return the templates
+     */
+    public Map<Class<?>, KafkaOperations<?, ?>> byValueType() {
+        return templates;
+    }
+
+    @Override
+    public void destroy() {
+        bytesKafkaTemplate.destroy();
+    }
+}
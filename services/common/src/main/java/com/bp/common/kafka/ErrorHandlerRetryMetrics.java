@@ -0,0 +1,66 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.RetryListener;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts what the container error handler does with failed deliveries, as
+ * {@code kafka.error.handler{topic, outcome}}: {@code failed} for every failed
+ * delivery attempt, {@code recovered} when a record is handed to the recoverer (a
+ * retry tier or the DLT) and {@code recovery_failed} when that publish fails.
+ */
+public class ErrorHandlerRetryMetrics implements RetryListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Error handler retry metrics.
+     *
+     * @param meterRegistry the meter registry
+     */
+    public ErrorHandlerRetryMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void failedDelivery(ConsumerRecord<?, ?> record, Exception ex, int deliveryAttempt) {
+        counter(record.topic(), "failed").increment();
+    }
+
+    @Override
+    public void failedDelivery(ConsumerRecords<?, ?> records, Exception ex, int deliveryAttempt) {
+        Set<String> topics = new HashSet<>();
+        for (TopicPartition partition : records.partitions()) {
+            topics.add(partition.topic());
+        }
+        topics.forEach(topic -> counter(topic, "failed").increment());
+    }
+
+    @Override
+    public void recovered(ConsumerRecord<?, ?> record, Exception ex) {
+        counter(record.topic(), "recovered").increment();
+    }
+
+    @Override
+    public void recoveryFailed(ConsumerRecord<?, ?> record, Exception original, Exception failure) {
+        counter(record.topic(), "recovery_failed").increment();
+    }
+
+    private Counter counter(String topic, String outcome) {
+        return counters.computeIfAbsent(topic + '|' + outcome, k -> Counter.builder("kafka.error.handler")
+                .description("Failed deliveries seen by the container error handler, by outcome")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,30 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Wires per-hop event latency metrics.
+ * <p>
+ * The outbox stamps the {@link com.bp.common.events.EventEnvelope} headers on every
+ * record it sends; each service's listener container factories set the interceptor
+ * below as their record or batch interceptor to read them back. Retry tier containers
+ * are left out: a record waiting out its delay is delivered more than once.
+ */
+@Configuration
+public class EventLatencyConfiguration {
+
+    /**
+     * Event latency interceptor.
+     *
+     * @param meterRegistry the meter registry
+     * @return the event latency interceptor
+     */
+    @Bean
+    public EventLatencyInterceptor eventLatencyInterceptor(MeterRegistry meterRegistry) {
+        return new EventLatencyInterceptor(meterRegistry, Clock.systemUTC());
+    }
+}
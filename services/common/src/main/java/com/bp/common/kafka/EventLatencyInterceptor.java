@@ -0,0 +1,90 @@
+package com.bp.common.kafka;
+
+import com.bp.common.events.EventEnvelope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the {@link EventEnvelope} of every consumed record and records how long the
+ * event spent in each hop, before the listener sees it.
+ * <p>
+ * {@code event.latency{stage, topic}} is a histogram per stage:
+ * {@code outbox} (enqueued to published), {@code broker} (published to consumed) and
+ * {@code end_to_end} (occurred to consumed). Records without an envelope are counted
+ * in {@code event.envelope.missing{topic}}.
+ */
+public class EventLatencyInterceptor
+        implements RecordInterceptor<String, Object>, BatchInterceptor<String, Object> {
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> missing = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Event latency interceptor.
+     *
+     * @param meterRegistry the meter registry
+     * @param clock         the clock
+     */
+    public EventLatencyInterceptor(MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    @Override
+    public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        record(record, clock.instant());
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<String, Object> intercept(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+        Instant consumedAt = clock.instant();
+        for (ConsumerRecord<String, Object> record : records) {
+            record(record, consumedAt);
+        }
+        return records;
+    }
+
+    private void record(ConsumerRecord<String, Object> record, Instant consumedAt) {
+        EventEnvelope envelope = EventEnvelope.from(record.headers());
+        if (envelope.eventId() == null) {
+            missing.computeIfAbsent(record.topic(), topic -> Counter.builder("event.envelope.missing")
+                    .description("Consumed records without event envelope headers")
+                    .tag("topic", topic)
+                    .register(meterRegistry)).increment();
+            return;
+        }
+        stage("outbox", record.topic(), envelope.enqueuedAt(), envelope.publishedAt());
+        stage("broker", record.topic(), envelope.publishedAt(), consumedAt);
+        stage("end_to_end", record.topic(), envelope.occurredAt(), consumedAt);
+    }
+
+    private void stage(String stage, String topic, Instant from, Instant to) {
+        if (from == null || to == null) {
+            return;
+        }
+        // Producer and consumer clocks may disagree slightly; never record a negative hop
+        Duration latency = Duration.between(from, to);
+        timers.computeIfAbsent(stage + '|' + topic, k -> Timer.builder("event.latency")
+                        .description("Time an event spent in one hop of its way to a consumer")
+                        .tag("stage", stage)
+                        .tag("topic", topic)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(latency.isNegative() ? Duration.ZERO : latency);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Wires the Kafka pipeline metrics of a service.
+ * <p>
+ * Spring Kafka already times every listener invocation as
+ * {@code spring.kafka.listener{name}} (the {@code @KafkaListener} id) and every
+ * {@code KafkaTemplate} send as {@code spring.kafka.template{name}}, including the
+ * outbox producer's raw template ({@code name=outboxKafkaTemplate}, wired by
+ * {@link com.bp.common.outbox.OutboxKafkaSender}); the filter below gives those
+ * timers SLO buckets. On top of that come per-partition consumer
+ * lag, poll-to-commit time and error handler outcomes; records moved to the retry
+ * tiers and the DLT are counted by {@link RetryTopicRouter}.
+ */
+@Configuration
+@EnableConfigurationProperties(KafkaMetricsProperties.class)
+public class KafkaMetricsConfiguration {
+
+    private static final Set<String> SLO_TIMERS = Set.of(
+            "spring.kafka.listener", "spring.kafka.template", "kafka.consumer.poll.to.commit");
+
+    /**
+     * Publishes the SLO buckets of the Kafka timers.
+     *
+     * @param properties the properties
+     * @return the meter filter
+     */
+    @Bean
+    public MeterFilter kafkaSloMeterFilter(KafkaMetricsProperties properties) {
+        double[] slo = properties.getSlo().stream().mapToDouble(Duration::toNanos).toArray();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!SLO_TIMERS.contains(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .serviceLevelObjectives(slo)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * Adds the {@link PollToCommitInterceptor} to the auto-configured consumer factory.
+     *
+     * @param meterRegistry the meter registry
+     * @return the consumer factory customizer
+     */
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer pollToCommitConsumerFactoryCustomizer(MeterRegistry meterRegistry) {
+        return factory -> factory.updateConfigs(Map.of(
+                ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, PollToCommitInterceptor.class.getName(),
+                PollToCommitInterceptor.METER_REGISTRY, meterRegistry));
+    }
+
+    /**
+     * Error handler retry metrics, registered on {@code kafkaRetryErrorHandler}.
+     *
+     * @param meterRegistry the meter registry
+     * @return the error handler retry metrics
+     */
+    @Bean
+    public ErrorHandlerRetryMetrics errorHandlerRetryMetrics(MeterRegistry meterRegistry) {
+        return new ErrorHandlerRetryMetrics(meterRegistry);
+    }
+
+    /**
+     * Consumer lag monitor over the groups of all listener containers of the service.
+     *
+     * @param kafkaAdmin    the kafka admin
+     * @param registry      the listener endpoint registry
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     * @return the consumer lag monitor
+     */
+    @Bean
+    public ConsumerLagMonitor consumerLagMonitor(
+            KafkaAdmin kafkaAdmin,
+            KafkaListenerEndpointRegistry registry,
+            KafkaMetricsProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new ConsumerLagMonitor(
+                kafkaAdmin,
+                () -> registry.getAllListenerContainers().stream()
+                        .map(MessageListenerContainer::getGroupId)
+                        .filter(Objects::nonNull)
+                        .toList(),
+                properties.getLagRefreshMs(),
+                meterRegistry
+        );
+    }
+}
@@ -0,0 +1,29 @@
+package com.bp.common.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kafka pipeline metrics, bound from {@code app.kafka.metrics.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.kafka.metrics")
+public class KafkaMetricsProperties {
+
+    /**
+     * SLO bucket boundaries published for the listener, template and poll-to-commit timers.
+     */
+    private List<Duration> slo = new ArrayList<>(List.of(
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)));
+
+    /**
+     * How often the per-partition consumer lag gauges are refreshed from the broker.
+     */
+    private long lagRefreshMs = 15000;
+}
@@ -0,0 +1,227 @@
+package com.bp.common.kafka;
+
+import com.bp.common.events.codec.EventContentType;
+import com.bp.common.idempotency.IdempotentConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.MethodKafkaListenerEndpoint;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wires the non-blocking retry topology.
+ * <p>
+ * A service imports this configuration, uses {@code kafkaRetryErrorHandler} on its
+ * listener container factories and provides a {@link RetryTierHandlers} bean with
+ * the per-record handlers for its main topics. One listener container is registered
+ * per tier, so a long tier delay never holds up a shorter one.
+ */
+@Configuration
+@EnableConfigurationProperties(KafkaRetryProperties.class)
+public class KafkaRetryConfiguration {
+
+    /**
+     * Retry topic router.
+     *
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     * @return the retry topic router
+     */
+    @Bean
+    public RetryTopicRouter retryTopicRouter(KafkaRetryProperties properties, MeterRegistry meterRegistry) {
+        return new RetryTopicRouter(
+                properties.getTopicPrefix(),
+                properties.isEnabled() ? properties.getTiers() : List.of(),
+                properties.getDltTopic(),
+                properties.getFatalExceptions(),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Templates the error handler republishes failed records with.
+     *
+     * @param kafkaTemplate the kafka template
+     * @return the dead letter kafka templates
+     */
+    @Bean
+    public DeadLetterKafkaTemplates deadLetterKafkaTemplates(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterKafkaTemplates(kafkaTemplate);
+    }
+
+    /**
+     * Error handler for every listener container of the service. With retry tiers a
+     * failed record is handed on at once; without them it is retried in place first.
+     *
+     * @param deadLetterKafkaTemplates the templates failed records are republished with
+     * @param router                   the retry topic router
+     * @param properties               the properties
+     * @param retryMetrics             the error handler metrics, if the service has them
+     * @return the default error handler
+     */
+    @Bean
+    public DefaultErrorHandler kafkaRetryErrorHandler(
+            DeadLetterKafkaTemplates deadLetterKafkaTemplates,
+            RetryTopicRouter router,
+            KafkaRetryProperties properties,
+            ObjectProvider<ErrorHandlerRetryMetrics> retryMetrics
+    ) {
+        DeadLetterPublishingRecoverer recoverer =
+                new DeadLetterPublishingRecoverer(deadLetterKafkaTemplates.byValueType(), router::destinationFor);
+        // Keep the first original-topic header so a record remembers its main topic across tiers
+        recoverer.setAppendOriginalHeaders(false);
+        // A decoded value is re-serialized as JSON, so a record first sent in the binary
+        // encoding must not keep announcing it. An unreadable record has no value here;
+        // its original bytes go out through the byte[] template with their own content type
+        recoverer.setHeadersFunction((record, ex) -> record.value() == null || record.value() instanceof byte[]
+                ? new RecordHeaders()
+                : new RecordHeaders().add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.JSON)));
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer,
+                properties.isEnabled() ? new FixedBackOff(0L, 0L) : new FixedBackOff(1000L, 3L));
+        // Without tiers, failures are retried in place; fatal ones go to the DLT at once there too
+        properties.getFatalExceptions().forEach(errorHandler::addNotRetryableExceptions);
+        retryMetrics.ifAvailable(errorHandler::setRetryListeners);
+        return errorHandler;
+    }
+
+    /**
+     * Retry tier topics and the DLT.
+     *
+     * @param router     the retry topic router
+     * @param properties the properties
+     * @return the new topics
+     */
+    @Bean
+    public KafkaAdmin.NewTopics retryTierTopics(RetryTopicRouter router, KafkaRetryProperties properties) {
+        List<NewTopic> topics = new ArrayList<>();
+        router.tiers().forEach(tier -> topics.add(TopicBuilder.name(tier.topic())
+                .partitions(properties.getPartitions())
+                .replicas(1)
+                .build()));
+        topics.add(TopicBuilder.name(router.dltTopic())
+                .partitions(properties.getPartitions())
+                .replicas(1)
+                .build());
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
+    /**
+     * Retry tier listener container factory: record listener with manual acks, so a
+     * record that is not yet due can be nacked until it is.
+     *
+     * @param consumerFactory        the consumer factory
+     * @param kafkaRetryErrorHandler the error handler
+     * @return the concurrent kafka listener container factory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> retryTierKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler kafkaRetryErrorHandler
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(kafkaRetryErrorHandler);
+        return factory;
+    }
+
+    /**
+     * Retry tier listener.
+     *
+     * @param router             the retry topic router
+     * @param handlers           the retry handlers provided by the service
+     * @param idempotentConsumer the idempotent consumer, if the service has one
+     * @return the retry tier listener
+     */
+    @Bean
+    public RetryTierListener retryTierListener(
+            RetryTopicRouter router,
+            RetryTierHandlers handlers,
+            ObjectProvider<IdempotentConsumer> idempotentConsumer
+    ) {
+        return new RetryTierListener(router, handlers, idempotentConsumer.getIfAvailable(), Clock.systemUTC());
+    }
+
+    /**
+     * Registers one listener container per retry tier.
+     *
+     * @param router                                 the retry topic router
+     * @param listener                               the retry tier listener
+     * @param retryTierKafkaListenerContainerFactory the retry tier container factory
+     * @param properties                             the properties
+     * @return the kafka listener configurer
+     */
+    @Bean
+    public KafkaListenerConfigurer retryTierListenerConfigurer(
+            RetryTopicRouter router,
+            RetryTierListener listener,
+            ConcurrentKafkaListenerContainerFactory<String, Object> retryTierKafkaListenerContainerFactory,
+            KafkaRetryProperties properties
+    ) {
+        return registrar -> {
+            DefaultMessageHandlerMethodFactory methodFactory = new DefaultMessageHandlerMethodFactory();
+            methodFactory.afterPropertiesSet();
+
+            for (RetryTopicRouter.Tier tier : router.tiers()) {
+                MethodKafkaListenerEndpoint<String, Object> endpoint = new MethodKafkaListenerEndpoint<>();
+                endpoint.setId(properties.getTopicPrefix() + "-retry-" + tier.label());
+                endpoint.setGroupId(properties.getGroupId());
+                endpoint.setTopics(tier.topic());
+                endpoint.setBean(listener);
+                endpoint.setMethod(onRetryMethod());
+                endpoint.setMessageHandlerMethodFactory(methodFactory);
+                registrar.registerEndpoint(endpoint, retryTierKafkaListenerContainerFactory);
+            }
+        };
+    }
+
+    /**
+     * Retry tier backlog monitor.
+     *
+     * @param kafkaAdmin    the kafka admin
+     * @param router        the retry topic router
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     * @return the retry tier backlog monitor
+     */
+    @Bean
+    public RetryTierBacklogMonitor retryTierBacklogMonitor(
+            KafkaAdmin kafkaAdmin,
+            RetryTopicRouter router,
+            KafkaRetryProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new RetryTierBacklogMonitor(
+                kafkaAdmin, router, properties.getGroupId(), properties.getBacklogRefreshMs(), meterRegistry);
+    }
+
+    private static Method onRetryMethod() {
+        try {
+            return RetryTierListener.class.getMethod("onRetry", ConsumerRecord.class, Acknowledgment.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bp.common.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking retry topology, bound from {@code app.kafka.retry.*}.
+ * <p>
+ * A record that fails on a main topic is moved to the first retry tier at once and
+ * the partition carries on. Each tier redelivers after its delay; a record that
+ * fails again moves to the next tier, and after the last tier to the DLT.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.kafka.retry")
+public class KafkaRetryProperties {
+
+    /**
+     * Route failures through the retry tiers; when false, failures are retried in place
+     * with a fixed back-off and then sent to the DLT.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Consumer group of the retry tier listeners.
+     */
+    private String groupId;
+
+    /**
+     * Tier topics are named {@code <topicPrefix>.retry-<delay>}, e.g. {@code payment-service.retry-10s}.
+     */
+    private String topicPrefix;
+
+    /**
+     * Dead letter topic after the last tier.
+     */
+    private String dltTopic;
+
+    /**
+     * Redelivery delay of each tier, in order.
+     */
+    private List<Duration> tiers = new ArrayList<>(List.of(
+            Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)));
+
+    /**
+     * Failures that no redelivery can fix, sent straight to the DLT; matched anywhere in the cause chain.
+     */
+    private List<Class<? extends Exception>> fatalExceptions = new ArrayList<>();
+
+    /**
+     * Partitions of each tier topic and of the DLT.
+     */
+    private int partitions = 3;
+
+    /**
+     * How often the per-tier backlog gauges are refreshed from the broker.
+     */
+    private long backlogRefreshMs = 15000;
+}
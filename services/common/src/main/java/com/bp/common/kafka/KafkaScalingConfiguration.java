@@ -0,0 +1,58 @@
+package com.bp.common.kafka;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+
+/**
+ * Wires topic partition scaling.
+ * <p>
+ * Producers size their topics with {@code kafkaScaling.partitionsFor(..)}; listeners
+ * take their concurrency from {@code #{@kafkaScaling.concurrencyFor('topic-key')}}.
+ * Within a partition, {@link KeyOrderedBatchProcessor} spreads a poll over workers by key.
+ */
+@Configuration
+public class KafkaScalingConfiguration {
+
+    /**
+     * Kafka scaling properties. Named so listener annotations can reference it from SpEL.
+     *
+     * @return the kafka scaling properties
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "app.kafka.scaling")
+    public KafkaScalingProperties kafkaScaling() {
+        return new KafkaScalingProperties();
+    }
+
+    /**
+     * Consumer partition check.
+     *
+     * @param listenerRegistry the listener registry
+     * @param kafkaAdmin       the kafka admin
+     * @param kafkaScaling     the kafka scaling properties
+     * @return the consumer partition check
+     */
+    @Bean
+    public ConsumerPartitionCheck consumerPartitionCheck(
+            KafkaListenerEndpointRegistry listenerRegistry,
+            KafkaAdmin kafkaAdmin,
+            KafkaScalingProperties kafkaScaling
+    ) {
+        return new ConsumerPartitionCheck(listenerRegistry, kafkaAdmin, kafkaScaling);
+    }
+
+    /**
+     * Key ordered batch processor.
+     *
+     * @param kafkaScaling the kafka scaling properties
+     * @return the key ordered batch processor
+     */
+    @Bean
+    public KeyOrderedBatchProcessor keyOrderedBatchProcessor(KafkaScalingProperties kafkaScaling) {
+        KafkaScalingProperties.Parallel parallel = kafkaScaling.getParallel();
+        return new KeyOrderedBatchProcessor(parallel.isEnabled(), parallel.getWorkers());
+    }
+}
@@ -0,0 +1,77 @@
+package com.bp.common.kafka;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Partition counts per topic and the listener concurrency derived from them,
+ * bound from {@code app.kafka.scaling.*}.
+ * <p>
+ * Topics are keyed like {@code app.kafka.topics.*} (e.g. {@code reservation-created}).
+ * The producing service creates each topic with its partition count; consuming
+ * services read the same value to size their listener containers.
+ */
+@Data
+public class KafkaScalingProperties {
+
+    /**
+     * Replicas of this service expected in each consumer group.
+     */
+    private int instances = 1;
+
+    /**
+     * Partition count for topics missing from {@link #partitions}.
+     */
+    private int defaultPartitions = 6;
+
+    /**
+     * Partition count per topic key.
+     */
+    private Map<String, Integer> partitions = new HashMap<>();
+
+    private final Parallel parallel = new Parallel();
+
+    /**
+     * Partitions for the given topic key.
+     *
+     * @param topicKey the topic key
+     * @return the partition count
+     */
+    public int partitionsFor(String topicKey) {
+        return partitions.getOrDefault(topicKey, defaultPartitions);
+    }
+
+    /**
+     * Listener threads per instance for a container subscribed to the given topics:
+     * the widest topic's partitions spread over all instances, so the group as a
+     * whole never runs more consumers than there are partitions to assign.
+     *
+     * @param topicKeys the topic keys the listener subscribes to
+     * @return the listener concurrency, at least 1
+     */
+    public int concurrencyFor(String... topicKeys) {
+        int maxPartitions = 1;
+        for (String topicKey : topicKeys) {
+            maxPartitions = Math.max(maxPartitions, partitionsFor(topicKey));
+        }
+        return Math.max(1, maxPartitions / Math.max(1, instances));
+    }
+
+    /**
+     * Key-ordered parallel processing within a poll.
+     */
+    @Data
+    public static class Parallel {
+        /**
+         * Process each poll record by record on the worker pool instead of the bulk path.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Worker threads shared by all listeners of the service.
+         */
+        private int workers = 8;
+    }
+}
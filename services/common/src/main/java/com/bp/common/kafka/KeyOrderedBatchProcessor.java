@@ -0,0 +1,120 @@
+package com.bp.common.kafka;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Runs the records of one poll on a bounded worker pool, one task per record key.
+ * <p>
+ * Records sharing a key are handled one after another in poll order; different keys
+ * run in parallel, so a slow record only holds up later records with its own key.
+ * A key stops at its first failure. Once every key is done, the lowest failed
+ * position is reported as a {@link BatchListenerFailedException}: every record before
+ * it has been processed, so the error handler commits exactly up to that point and
+ * redelivers the rest.
+ */
+public class KeyOrderedBatchProcessor implements DisposableBean {
+
+    private final boolean parallelMode;
+    private final ThreadPoolTaskExecutor workers;
+
+    /**
+     * Instantiates a new Key ordered batch processor.
+     *
+     * @param parallelMode whether batch listeners should process record by record on this pool
+     *                     instead of their bulk path
+     * @param workerCount  the number of worker threads
+     */
+    public KeyOrderedBatchProcessor(boolean parallelMode, int workerCount) {
+        this.parallelMode = parallelMode;
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(workerCount);
+        this.workers.setMaxPoolSize(workerCount);
+        this.workers.setThreadNamePrefix("kafka-keyed-");
+        this.workers.initialize();
+    }
+
+    /**
+     * Whether listeners should use {@link #process} as their primary path.
+     *
+     * @return true in parallel-consumer mode
+     */
+    public boolean isParallelMode() {
+        return parallelMode;
+    }
+
+    /**
+     * Process the records of one poll, keeping order per key.
+     *
+     * @param <T>     the record type
+     * @param records the records, in poll order
+     * @param keys    the record keys, aligned with {@code records}; null keys carry no ordering
+     * @param handler the per-record handler
+     * @throws BatchListenerFailedException at the lowest position that failed
+     */
+    public <T> void process(List<T> records, List<?> keys, Consumer<? super T> handler) {
+        processIndexed(records, keys, (record, position) -> handler.accept(record));
+    }
+
+    /**
+     * Same as {@link #process}, for handlers that also need the record's position in
+     * the poll, e.g. to look up data aligned with the records such as their headers.
+     *
+     * @param <T>     the record type
+     * @param records the records, in poll order
+     * @param keys    the record keys, aligned with {@code records}; null keys carry no ordering
+     * @param handler the per-record handler, given the record and its position
+     * @throws BatchListenerFailedException at the lowest position that failed
+     */
+    public <T> void processIndexed(List<T> records, List<?> keys, ObjIntConsumer<? super T> handler) {
+        Map<Object, List<Integer>> positionsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            Object key = keys != null && i < keys.size() ? keys.get(i) : null;
+            positionsByKey.computeIfAbsent(key != null ? key : new Object(), k -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<Failure>> tasks = new ArrayList<>(positionsByKey.size());
+        for (List<Integer> positions : positionsByKey.values()) {
+            tasks.add(CompletableFuture.supplyAsync(() -> runInOrder(records, positions, handler), workers));
+        }
+
+        Failure lowest = null;
+        for (CompletableFuture<Failure> task : tasks) {
+            Failure failure = task.join();
+            if (failure != null && (lowest == null || failure.position() < lowest.position())) {
+                lowest = failure;
+            }
+        }
+
+        if (lowest != null) {
+            throw new BatchListenerFailedException("Failed to process record", lowest.cause(), lowest.position());
+        }
+    }
+
+    private <T> Failure runInOrder(List<T> records, List<Integer> positions, ObjIntConsumer<? super T> handler) {
+        for (int position : positions) {
+            try {
+                handler.accept(records.get(position), position);
+            } catch (RuntimeException e) {
+                return new Failure(position, e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+
+    private record Failure(int position, RuntimeException cause) {}
+}
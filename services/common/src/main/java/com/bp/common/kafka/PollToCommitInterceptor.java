@@ -0,0 +1,82 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka client interceptor recording how long records stay between the poll that
+ * returned them and the commit of their offsets, as the timer
+ * {@code kafka.consumer.poll.to.commit{group, topic}}.
+ * <p>
+ * The clock starts at the first poll of a partition after its last commit, so a
+ * partition whose commits lag behind processing shows up even if each handler call
+ * is fast. On retry tier groups the time includes the tier delay. The meter registry
+ * is passed in the consumer configs under {@link #METER_REGISTRY}; without it the
+ * interceptor does nothing.
+ */
+public class PollToCommitInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    /**
+     * The constant METER_REGISTRY consumer config key.
+     */
+    public static final String METER_REGISTRY = "bp.metrics.meter-registry";
+
+    private final Map<TopicPartition, Long> firstUncommittedPoll = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+    private String groupId;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        meterRegistry = configs.get(METER_REGISTRY) instanceof MeterRegistry registry ? registry : null;
+        groupId = String.valueOf(configs.get(ConsumerConfig.GROUP_ID_CONFIG));
+    }
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        if (meterRegistry != null) {
+            long polledAt = System.nanoTime();
+            for (TopicPartition partition : records.partitions()) {
+                firstUncommittedPoll.putIfAbsent(partition, polledAt);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (meterRegistry == null) {
+            return;
+        }
+        long committedAt = System.nanoTime();
+        for (TopicPartition partition : offsets.keySet()) {
+            Long polledAt = firstUncommittedPoll.remove(partition);
+            if (polledAt != null) {
+                timer(partition.topic()).record(committedAt - polledAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        firstUncommittedPoll.clear();
+    }
+
+    private Timer timer(String topic) {
+        return timers.computeIfAbsent(topic, t -> Timer.builder("kafka.consumer.poll.to.commit")
+                .description("Time from the poll that returned a partition's records to the commit of their offsets")
+                .tag("group", groupId)
+                .tag("topic", t)
+                .register(meterRegistry));
+    }
+}
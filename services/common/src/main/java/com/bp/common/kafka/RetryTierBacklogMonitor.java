@@ -0,0 +1,141 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes how many records wait in each retry tier as the gauge
+ * {@code kafka.retry.tier.backlog{tier}}: the tier's end offsets minus the offsets
+ * the tier listeners have committed, refreshed from the broker on a fixed interval.
+ */
+@Slf4j
+public class RetryTierBacklogMonitor implements SmartLifecycle {
+
+    private final KafkaAdmin kafkaAdmin;
+    private final RetryTopicRouter router;
+    private final String groupId;
+    private final long refreshMs;
+    private final Map<String, AtomicLong> backlogByTopic = new HashMap<>();
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private AdminClient adminClient;
+    private volatile boolean running;
+
+    /**
+     * Instantiates a new Retry tier backlog monitor.
+     *
+     * @param kafkaAdmin    the kafka admin
+     * @param router        the retry topic router
+     * @param groupId       the consumer group of the tier listeners
+     * @param refreshMs     the refresh interval
+     * @param meterRegistry the meter registry
+     */
+    public RetryTierBacklogMonitor(
+            KafkaAdmin kafkaAdmin,
+            RetryTopicRouter router,
+            String groupId,
+            long refreshMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.router = router;
+        this.groupId = groupId;
+        this.refreshMs = refreshMs;
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(1);
+        this.scheduler.setThreadNamePrefix("kafka-retry-backlog-");
+
+        for (RetryTopicRouter.Tier tier : router.tiers()) {
+            AtomicLong backlog = new AtomicLong();
+            backlogByTopic.put(tier.topic(), backlog);
+            Gauge.builder("kafka.retry.tier.backlog", backlog, AtomicLong::get)
+                    .description("Records waiting in a retry tier")
+                    .tag("tier", tier.label())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Refresh the backlog gauges from the broker.
+     */
+    public void refresh() {
+        if (backlogByTopic.isEmpty()) {
+            return;
+        }
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = adminClient
+                    .listConsumerGroupOffsets(groupId)
+                    .partitionsToOffsetAndMetadata()
+                    .get(refreshMs, TimeUnit.MILLISECONDS);
+
+            List<TopicPartition> partitions = adminClient.describeTopics(backlogByTopic.keySet())
+                    .allTopicNames()
+                    .get(refreshMs, TimeUnit.MILLISECONDS)
+                    .values().stream()
+                    .flatMap(topic -> topic.partitions().stream()
+                            .map(info -> new TopicPartition(topic.name(), info.partition())))
+                    .toList();
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = adminClient
+                    .listOffsets(partitions.stream().collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest())))
+                    .all()
+                    .get(refreshMs, TimeUnit.MILLISECONDS);
+
+            Map<String, Long> backlog = new HashMap<>();
+            ends.forEach((partition, end) -> {
+                OffsetAndMetadata offset = committed.get(partition);
+                long lag = end.offset() - (offset != null ? offset.offset() : 0L);
+                backlog.merge(partition.topic(), Math.max(0, lag), Long::sum);
+            });
+            backlogByTopic.forEach((topic, gauge) -> gauge.set(backlog.getOrDefault(topic, 0L)));
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Retry tier backlog refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (backlogByTopic.isEmpty()) {
+            return;
+        }
+        adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::refresh, Duration.ofMillis(refreshMs));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        if (adminClient != null) {
+            adminClient.close(Duration.ofSeconds(5));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
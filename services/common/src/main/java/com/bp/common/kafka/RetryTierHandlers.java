@@ -0,0 +1,48 @@
+package com.bp.common.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Per-record handlers for records coming back from the retry tiers, keyed by the
+ * main topic the record originally failed on. Each service registers the same
+ * handlers its single-record listeners use.
+ */
+public class RetryTierHandlers {
+
+    private final Map<String, Consumer<Object>> handlers = new HashMap<>();
+
+    /**
+     * Register the handler for records that failed on the given topic.
+     *
+     * @param <T>       the event type
+     * @param topic     the main topic
+     * @param eventType the event class expected on that topic
+     * @param handler   the handler
+     * @return this registry
+     */
+    public <T> RetryTierHandlers register(String topic, Class<T> eventType, Consumer<? super T> handler) {
+        handlers.put(topic, value -> {
+            if (!eventType.isInstance(value)) {
+                throw new ClassCastException("Expected " + eventType.getName() + " from " + topic + " but got " + value);
+            }
+            handler.accept(eventType.cast(value));
+        });
+        return this;
+    }
+
+    /**
+     * Handle a retried record.
+     *
+     * @param originalTopic the main topic the record failed on
+     * @param value         the record value
+     */
+    public void dispatch(String originalTopic, Object value) {
+        Consumer<Object> handler = handlers.get(originalTopic);
+        if (handler == null) {
+            throw new IllegalStateException("No retry handler registered for topic " + originalTopic);
+        }
+        handler.accept(value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bp.common.kafka;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.idempotency.IdempotentConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Consumes one retry tier. A record that is not yet due is nacked for the time it
+ * still has to wait: the container pauses the tier instead of sleeping on the
+ * consumer thread, and redelivers the record when it is due. Due records are handed
+ * to the handler registered for their original topic; a failure there moves the
+ * record on to the next tier through the container's error handler. With an
+ * {@link IdempotentConsumer}, a record whose event was processed meanwhile is dropped.
+ */
+@Slf4j
+public class RetryTierListener {
+
+    private final RetryTopicRouter router;
+    private final RetryTierHandlers handlers;
+    private final IdempotentConsumer idempotentConsumer;
+    private final Clock clock;
+
+    /**
+     * Instantiates a new Retry tier listener.
+     *
+     * @param router   the retry topic router
+     * @param handlers the retry handlers
+     * @param clock    the clock
+     */
+    public RetryTierListener(RetryTopicRouter router, RetryTierHandlers handlers, Clock clock) {
+        this(router, handlers, null, clock);
+    }
+
+    /**
+     * Instantiates a new Retry tier listener that skips events already processed.
+     *
+     * @param router             the retry topic router
+     * @param handlers           the retry handlers
+     * @param idempotentConsumer the idempotent consumer, or {@code null}
+     * @param clock              the clock
+     */
+    public RetryTierListener(
+            RetryTopicRouter router,
+            RetryTierHandlers handlers,
+            IdempotentConsumer idempotentConsumer,
+            Clock clock
+    ) {
+        this.router = router;
+        this.handlers = handlers;
+        this.idempotentConsumer = idempotentConsumer;
+        this.clock = clock;
+    }
+
+    /**
+     * On retry.
+     *
+     * @param record the record
+     * @param ack    the acknowledgment
+     */
+    public void onRetry(ConsumerRecord<String, Object> record, Acknowledgment ack) {
+        Duration delay = router.tierOf(record.topic())
+                .map(RetryTopicRouter.Tier::delay)
+                .orElse(Duration.ZERO);
+        long waitMs = record.timestamp() + delay.toMillis() - clock.millis();
+        if (waitMs > 0) {
+            ack.nack(Duration.ofMillis(waitMs));
+            return;
+        }
+
+        Header originalTopic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        if (originalTopic == null) {
+            throw new IllegalStateException("Retry record without original topic: " + record.topic() + "@" + record.offset());
+        }
+        String topic = new String(originalTopic.value(), StandardCharsets.UTF_8);
+
+        log.info("Retrying record from {} on {} key={}", topic, record.topic(), record.key());
+        if (idempotentConsumer != null) {
+            idempotentConsumer.handle(EventEnvelope.from(record.headers()).eventId(), record.value(),
+                    value -> handlers.dispatch(topic, value));
+        } else {
+            handlers.dispatch(topic, record.value());
+        }
+        ack.acknowledge();
+    }
+}
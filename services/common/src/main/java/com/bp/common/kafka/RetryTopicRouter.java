@@ -0,0 +1,175 @@
+package com.bp.common.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides where a failed record goes next: from a main topic to the first retry
+ * tier, from each tier to the next, and from the last tier to the DLT. Records that
+ * can never succeed skip the tiers: a {@code DeserializationException} (raised for
+ * records an {@code ErrorHandlingDeserializer} could not read, which every service
+ * wraps its value deserializer in), a failed message conversion, a payload of the
+ * wrong type, or one of the service's own fatal exceptions, such as a conflict a
+ * redelivery cannot resolve.
+ * <p>
+ * Tiered retry gives up per-key ordering for the records it retries: while a record
+ * waits in a tier, later records with the same key keep flowing on the main topic
+ * and may be processed first. Listeners must therefore tolerate a retried event
+ * arriving after a newer one for the same reservation. Every move is counted in
+ * {@code kafka.retry.routed{tier, topic}}, tagged with the main topic the record
+ * was first consumed from; {@code tier="dlt"} is the dead-letter rate.
+ */
+public class RetryTopicRouter {
+
+    private final List<Tier> tiers;
+    private final List<Class<? extends Exception>> fatalExceptions;
+    private final String dltTopic;
+    private final Map<String, String> tierLabels = new HashMap<>();
+    private final Map<String, Counter> routedCounters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Instantiates a new Retry topic router.
+     *
+     * @param topicPrefix   the tier topic prefix
+     * @param delays        the tier delays, in order; empty routes failures straight to the DLT
+     * @param dltTopic      the dead letter topic
+     * @param meterRegistry the meter registry
+     */
+    public RetryTopicRouter(String topicPrefix, List<Duration> delays, String dltTopic, MeterRegistry meterRegistry) {
+        this(topicPrefix, delays, dltTopic, List.of(), meterRegistry);
+    }
+
+    /**
+     * Instantiates a new Retry topic router.
+     *
+     * @param topicPrefix     the tier topic prefix
+     * @param delays          the tier delays, in order; empty routes failures straight to the DLT
+     * @param dltTopic        the dead letter topic
+     * @param fatalExceptions further failures, besides unreadable records, that go straight to the DLT
+     * @param meterRegistry   the meter registry
+     */
+    public RetryTopicRouter(
+            String topicPrefix,
+            List<Duration> delays,
+            String dltTopic,
+            List<Class<? extends Exception>> fatalExceptions,
+            MeterRegistry meterRegistry
+    ) {
+        this.dltTopic = dltTopic;
+        this.fatalExceptions = List.copyOf(fatalExceptions);
+        this.meterRegistry = meterRegistry;
+        this.tiers = new ArrayList<>(delays.size());
+        for (Duration delay : delays) {
+            Tier tier = new Tier(topicPrefix + ".retry-" + label(delay), label(delay), delay);
+            tiers.add(tier);
+            tierLabels.put(tier.topic(), tier.label());
+        }
+        tierLabels.put(dltTopic, "dlt");
+    }
+
+    /**
+     * The retry tiers, in order.
+     *
+     * @return the tiers
+     */
+    public List<Tier> tiers() {
+        return tiers;
+    }
+
+    /**
+     * The dead letter topic.
+     *
+     * @return the dlt topic
+     */
+    public String dltTopic() {
+        return dltTopic;
+    }
+
+    /**
+     * The tier owning the given topic.
+     *
+     * @param topic the topic
+     * @return the tier, empty for main topics
+     */
+    public Optional<Tier> tierOf(String topic) {
+        return tiers.stream().filter(tier -> tier.topic().equals(topic)).findFirst();
+    }
+
+    /**
+     * Destination for a record that failed processing.
+     *
+     * @param record    the failed record
+     * @param exception the failure
+     * @return the next topic, with the partition left to the producer
+     */
+    public TopicPartition destinationFor(ConsumerRecord<?, ?> record, Exception exception) {
+        String destination = dltTopic;
+        if (!isFatal(exception)) {
+            int next = tiers.indexOf(tierOf(record.topic()).orElse(null)) + 1;
+            if (next < tiers.size()) {
+                destination = tiers.get(next).topic();
+            }
+        }
+        routedCounter(destination, mainTopicOf(record)).increment();
+        return new TopicPartition(destination, -1);
+    }
+
+    private static String mainTopicOf(ConsumerRecord<?, ?> record) {
+        Header originalTopic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        return originalTopic != null ? new String(originalTopic.value(), StandardCharsets.UTF_8) : record.topic();
+    }
+
+    private boolean isFatal(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeserializationException
+                    || cause instanceof MessageConversionException
+                    || cause instanceof ClassCastException) {
+                return true;
+            }
+            for (Class<? extends Exception> fatal : fatalExceptions) {
+                if (fatal.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Counter routedCounter(String destination, String mainTopic) {
+        return routedCounters.computeIfAbsent(destination + '|' + mainTopic, k -> Counter.builder("kafka.retry.routed")
+                .description("Failed records moved to a retry tier or the DLT")
+                .tag("tier", tierLabels.get(destination))
+                .tag("topic", mainTopic)
+                .register(meterRegistry));
+    }
+
+    private static String label(Duration delay) {
+        long millis = delay.toMillis();
+        return millis % 1000 == 0 ? millis / 1000 + "s" : millis + "ms";
+    }
+
+    /**
+     * One retry tier.
+     *
+     * @param topic the tier topic
+     * @param label the delay label, e.g. {@code 10s}
+     * @param delay the redelivery delay
+     */
+    public record Tier(String topic, String label, Duration delay) {}
+}
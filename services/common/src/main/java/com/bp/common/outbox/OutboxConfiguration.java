@@ -0,0 +1,158 @@
+package com.bp.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+
+/**
+ * Wires the outbox engine.
+ * <p>
+ * A service imports this configuration and provides an {@link OutboxStore} over its
+ * outbox table plus an {@link OutboxEventTypeRegistry} with the events it publishes.
+ * An {@link OutboxTopicRouter} bean is optional; by default each type goes to the
+ * topic it was registered with.
+ */
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfiguration {
+
+    /**
+     * Outbox kafka sender.
+     *
+     * @param kafkaTemplate the kafka template
+     * @return the outbox kafka sender
+     */
+    @Bean
+    public OutboxKafkaSender outboxKafkaSender(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new OutboxKafkaSender(kafkaTemplate);
+    }
+
+    /**
+     * Outbox dispatch lanes.
+     *
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     * @return the outbox dispatch lanes
+     */
+    @Bean
+    public OutboxDispatchLanes outboxDispatchLanes(OutboxProperties properties, MeterRegistry meterRegistry) {
+        return new OutboxDispatchLanes(properties.getLanes(), meterRegistry);
+    }
+
+    /**
+     * Outbox publisher.
+     *
+     * @param outboxStore   the outbox store
+     * @param eventTypes    the event types
+     * @param topicRouter   the topic router, if the service declares one
+     * @param sender        the sender
+     * @param dispatchLanes the dispatch lanes
+     * @param objectMapper  the object mapper
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     * @param environment   the environment
+     * @return the outbox publisher
+     */
+    @Bean
+    public OutboxPublisher outboxPublisher(
+            OutboxStore outboxStore,
+            OutboxEventTypeRegistry eventTypes,
+            ObjectProvider<OutboxTopicRouter> topicRouter,
+            OutboxKafkaSender sender,
+            OutboxDispatchLanes dispatchLanes,
+            ObjectMapper objectMapper,
+            OutboxProperties properties,
+            MeterRegistry meterRegistry,
+            Environment environment
+    ) {
+        if (!StringUtils.hasText(properties.getInstanceId())) {
+            String hostname = System.getenv("HOSTNAME");
+            properties.setInstanceId(StringUtils.hasText(hostname) ? hostname : UUID.randomUUID().toString());
+        }
+        if (!StringUtils.hasText(properties.getEventSource())) {
+            properties.setEventSource(environment.getRequiredProperty("spring.application.name"));
+        }
+        return new OutboxPublisher(
+                outboxStore,
+                eventTypes,
+                topicRouter.getIfAvailable(OutboxTopicRouter::byEventType),
+                sender,
+                dispatchLanes,
+                objectMapper,
+                properties,
+                meterRegistry
+        );
+    }
+
+    /**
+     * Outbox poller.
+     *
+     * @param outboxPublisher the outbox publisher
+     * @param outboxStore     the outbox store
+     * @param properties      the properties
+     * @param meterRegistry   the meter registry
+     * @return the outbox poller
+     */
+    @Bean
+    public OutboxPoller outboxPoller(
+            OutboxPublisher outboxPublisher,
+            OutboxStore outboxStore,
+            OutboxProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new OutboxPoller(
+                outboxPublisher,
+                outboxStore,
+                meterRegistry,
+                properties.getBatchSize(),
+                properties.getPoll().getMinDelayMs(),
+                properties.getPoll().getMaxIdleDelayMs(),
+                properties.getPoll().getBacklogRefreshMs()
+        );
+    }
+
+    /**
+     * Outbox fast path dispatcher.
+     *
+     * @param outboxPublisher the outbox publisher
+     * @param properties      the properties
+     * @return the outbox fast path dispatcher
+     */
+    @Bean
+    public OutboxFastPathDispatcher outboxFastPathDispatcher(OutboxPublisher outboxPublisher, OutboxProperties properties) {
+        OutboxProperties.FastPath fastPath = properties.getFastPath();
+        return new OutboxFastPathDispatcher(
+                outboxPublisher,
+                fastPath.isEnabled(),
+                fastPath.getThreads(),
+                fastPath.getQueueCapacity()
+        );
+    }
+
+    /**
+     * Outbox retention job.
+     *
+     * @param outboxStore the outbox store
+     * @param properties  the properties
+     * @return the outbox retention job
+     */
+    @Bean
+    public OutboxRetentionJob outboxRetentionJob(OutboxStore outboxStore, OutboxProperties properties) {
+        OutboxProperties.Retention retention = properties.getRetention();
+        return new OutboxRetentionJob(
+                outboxStore,
+                retention.isEnabled(),
+                retention.getSentMaxAgeHours(),
+                retention.getChunkSize(),
+                retention.getMaxChunksPerRun()
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.bp.common.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of single-threaded lanes the outbox hands its sends to.
+ * <p>
+ * Work is routed by Kafka record key, so every event for one key runs on the same
+ * lane in submission order, while events for unrelated keys proceed in parallel.
+ */
+public class OutboxDispatchLanes implements DisposableBean {
+
+    private final List<ThreadPoolTaskExecutor> lanes;
+
+    /**
+     * Instantiates new Outbox dispatch lanes.
+     *
+     * @param laneCount     the number of lanes
+     * @param meterRegistry the meter registry
+     */
+    public OutboxDispatchLanes(int laneCount, MeterRegistry meterRegistry) {
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            ThreadPoolTaskExecutor lane = new ThreadPoolTaskExecutor();
+            lane.setCorePoolSize(1);
+            lane.setMaxPoolSize(1);
+            lane.setThreadNamePrefix("outbox-lane-" + i + "-");
+            lane.initialize();
+            lanes.add(lane);
+
+            Gauge.builder("outbox.lane.queue.depth", lane, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Outbox sends waiting on a dispatch lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs the task on the lane owning the given key.
+     *
+     * @param <T>  the result type
+     * @param key  the Kafka record key
+     * @param task the task
+     * @return future completed with the task's result, or exceptionally if it threw
+     */
+    public <T> CompletableFuture<T> submit(String key, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, lanes.get(Math.floorMod(key.hashCode(), lanes.size())));
+    }
+
+    @Override
+    public void destroy() {
+        lanes.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bp.common.outbox;
+
+import java.util.List;
+
+/**
+ * Published inside the writing transaction whenever outbox rows are inserted.
+ * {@link OutboxFastPathDispatcher} only receives it once that transaction has committed.
+ *
+ * @param outboxEventIds the ids of the freshly inserted outbox rows
+ */
+public record OutboxEventSaved(List<Long> outboxEventIds) {}
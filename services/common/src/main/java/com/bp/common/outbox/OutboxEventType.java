@@ -0,0 +1,17 @@
+package com.bp.common.outbox;
+
+import java.util.function.Function;
+
+/**
+ * A registered outbox event type.
+ *
+ * @param <T>          the event record type
+ * @param eventClass   the event class; its name is sent as the {@code __TypeId__} header
+ * @param topic        the default topic
+ * @param keyExtractor derives the record key from the event, for rows stored without one
+ */
+public record OutboxEventType<T>(
+        Class<T> eventClass,
+        String topic,
+        Function<? super T, String> keyExtractor
+) {}
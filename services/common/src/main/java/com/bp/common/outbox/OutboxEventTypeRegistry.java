@@ -0,0 +1,54 @@
+package com.bp.common.outbox;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Typed registry of the event types a service publishes through its outbox.
+ * <p>
+ * Stored type names resolve with a map lookup rather than {@code Class.forName},
+ * and only registered types can be published. Each type is reachable by both its
+ * simple and its fully qualified class name, so rows written either way resolve.
+ */
+public class OutboxEventTypeRegistry {
+
+    private final Map<String, OutboxEventType<?>> byName = new HashMap<>();
+
+    /**
+     * Registers an event type.
+     *
+     * @param <T>          the event record type
+     * @param eventClass   the event class
+     * @param topic        the default topic
+     * @param keyExtractor derives the record key from the event
+     * @return this registry
+     */
+    public <T> OutboxEventTypeRegistry register(Class<T> eventClass, String topic, Function<? super T, String> keyExtractor) {
+        OutboxEventType<T> type = new OutboxEventType<>(eventClass, topic, keyExtractor);
+        byName.put(eventClass.getName(), type);
+        byName.put(eventClass.getSimpleName(), type);
+        return this;
+    }
+
+    /**
+     * Finds the type for a stored event type name.
+     *
+     * @param eventType the simple or fully qualified class name
+     * @return the registered type, if any
+     */
+    public Optional<OutboxEventType<?>> find(String eventType) {
+        return Optional.ofNullable(byName.get(eventType));
+    }
+
+    /**
+     * Gets all registered types.
+     *
+     * @return the types
+     */
+    public Collection<OutboxEventType<?>> types() {
+        return byName.values().stream().distinct().toList();
+    }
+}
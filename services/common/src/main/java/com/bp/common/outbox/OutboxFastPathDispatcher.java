@@ -0,0 +1,77 @@
+package com.bp.common.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Publishes outbox rows as soon as the transaction that wrote them commits.
+ * <p>
+ * Work is handed to a small bounded pool so the request thread never waits on Kafka.
+ * Rows this path skips (pool saturated, row already claimed, rollback before send)
+ * stay NEW and are picked up by the {@link OutboxPoller} sweep.
+ */
+@Slf4j
+public class OutboxFastPathDispatcher implements DisposableBean {
+
+    private final OutboxPublisher outboxPublisher;
+    private final ThreadPoolTaskExecutor executor;
+    private final boolean enabled;
+
+    /**
+     * Instantiates a new Outbox fast path dispatcher.
+     *
+     * @param outboxPublisher the outbox publisher
+     * @param enabled         whether the fast path is active
+     * @param threads         the number of dispatch threads
+     * @param queueCapacity   the number of pending dispatches before new ones are left to the poller
+     */
+    public OutboxFastPathDispatcher(
+            OutboxPublisher outboxPublisher,
+            boolean enabled,
+            int threads,
+            int queueCapacity
+    ) {
+        this.outboxPublisher = outboxPublisher;
+        this.enabled = enabled;
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("outbox-fast-path-");
+        this.executor.initialize();
+    }
+
+    /**
+     * On outbox event saved.
+     *
+     * @param event the event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOutboxEventSaved(OutboxEventSaved event) {
+        if (!enabled || event.outboxEventIds().isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> publish(event));
+        } catch (TaskRejectedException e) {
+            log.debug("Outbox fast path saturated, leaving ids={} to the poller", event.outboxEventIds());
+        }
+    }
+
+    private void publish(OutboxEventSaved event) {
+        try {
+            outboxPublisher.publishNow(event.outboxEventIds());
+        } catch (RuntimeException e) {
+            log.warn("Outbox fast path failed for ids={}, poller will retry: {}", event.outboxEventIds(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+package com.bp.common.outbox;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.events.codec.EventContentType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends outbox payloads to Kafka as raw bytes.
+ * <p>
+ * Outbox payloads are already JSON, so they go out as-is with the same
+ * {@code __TypeId__} header {@code JsonSerializer} would add. Consumers keep
+ * deserializing into the {@code com.bp.common.events} records unchanged.
+ * Topics switched to the binary encoding go out with a content type header instead.
+ * Every record also carries the {@link EventEnvelope} headers.
+ * <p>
+ * The raw template is not a bean of its own, so the container callbacks that give a
+ * {@code KafkaTemplate} its {@code spring.kafka.template} send timer are forwarded
+ * to it from this bean; its timers carry {@code name=}{@value #TEMPLATE_NAME}.
+ */
+@Slf4j
+public class OutboxKafkaSender implements ApplicationContextAware, SmartInitializingSingleton, DisposableBean {
+
+    /**
+     * The constant TEMPLATE_NAME.
+     */
+    public static final String TEMPLATE_NAME = "outboxKafkaTemplate";
+
+    private final KafkaTemplate<String, byte[]> rawKafkaTemplate;
+
+    /**
+     * Instantiates a new Outbox kafka sender.
+     *
+     * @param kafkaTemplate the kafka template whose producer settings are reused
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OutboxKafkaSender(KafkaTemplate<String, Object> kafkaTemplate) {
+        // Same producer settings as the shared template, only the value serializer differs
+        this.rawKafkaTemplate = new KafkaTemplate<>(
+                (ProducerFactory) kafkaTemplate.getProducerFactory(),
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)
+        );
+        this.rawKafkaTemplate.setBeanName(TEMPLATE_NAME);
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        rawKafkaTemplate.setApplicationContext(applicationContext);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rawKafkaTemplate.afterSingletonsInstantiated();
+    }
+
+    /**
+     * Send an already serialized event.
+     *
+     * @param topic    the topic
+     * @param key      the record key
+     * @param typeId   the fully qualified event class name
+     * @param payload  the JSON payload as stored in the outbox
+     * @param envelope the event envelope; the publish time is stamped here
+     * @return future resolved when broker acknowledges the message
+     */
+    public CompletableFuture<SendResult<String, byte[]>> send(
+            String topic, String key, String typeId, byte[] payload, EventEnvelope envelope) {
+        log.debug("KAFKA | Sending {}: topic={}, key={}", typeId, topic, key);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, payload);
+        record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, typeId.getBytes(StandardCharsets.UTF_8));
+        return send(record, envelope);
+    }
+
+    /**
+     * Send an already encoded event in a non-JSON wire format. The payload
+     * describes its own type, so only the content type header is added.
+     *
+     * @param topic       the topic
+     * @param key         the record key
+     * @param contentType the content type, see {@link EventContentType}
+     * @param payload     the encoded payload
+     * @param envelope    the event envelope; the publish time is stamped here
+     * @return future resolved when broker acknowledges the message
+     */
+    public CompletableFuture<SendResult<String, byte[]>> sendEncoded(
+            String topic, String key, String contentType, byte[] payload, EventEnvelope envelope) {
+        log.debug("KAFKA | Sending {}: topic={}, key={}", contentType, topic, key);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, payload);
+        record.headers().add(EventContentType.HEADER, EventContentType.headerValue(contentType));
+        return send(record, envelope);
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record, EventEnvelope envelope) {
+        envelope.withPublishedAt(Instant.now()).writeTo(record.headers());
+        return rawKafkaTemplate.send(record);
+    }
+
+    @Override
+    public void destroy() {
+        rawKafkaTemplate.destroy();
+    }
+}
@@ -0,0 +1,159 @@
+package com.bp.common.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives {@link OutboxPublisher#publishOutboxEvents()} with a delay that follows the backlog.
+ * <p>
+ * A full batch means more rows are waiting, so the next poll starts immediately.
+ * A partial batch polls again after the minimum delay; each empty poll doubles
+ * the delay up to the idle maximum. Under load, throughput is bounded by Kafka
+ * acks rather than by a fixed sleep, and an idle service issues few queries.
+ * <p>
+ * The {@code outbox.backlog} gauge reads a cached count, refreshed every
+ * {@code backlogRefreshMs} on the poller's scheduler, so a metrics scrape never
+ * runs a query against the outbox table.
+ */
+@Slf4j
+public class OutboxPoller implements SmartLifecycle {
+
+    private final OutboxPublisher outboxPublisher;
+    private final OutboxStore outboxStore;
+    private final int batchSize;
+    private final long minDelayMs;
+    private final long maxIdleDelayMs;
+    private final long backlogRefreshMs;
+    private final AtomicLong currentDelayMs = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private volatile ThreadPoolTaskScheduler scheduler;
+    private volatile boolean running;
+
+    /**
+     * Instantiates a new Outbox poller.
+     *
+     * @param outboxPublisher  the outbox publisher
+     * @param outboxStore      the outbox store, used for the backlog gauge
+     * @param meterRegistry    the meter registry
+     * @param batchSize        the claim batch size; a batch this large triggers an immediate re-poll
+     * @param minDelayMs       the delay after a partial batch
+     * @param maxIdleDelayMs   the upper bound the delay backs off to while idle
+     * @param backlogRefreshMs how often the backlog gauge is recounted
+     */
+    public OutboxPoller(
+            OutboxPublisher outboxPublisher,
+            OutboxStore outboxStore,
+            MeterRegistry meterRegistry,
+            int batchSize,
+            long minDelayMs,
+            long maxIdleDelayMs,
+            long backlogRefreshMs
+    ) {
+        this.outboxPublisher = outboxPublisher;
+        this.outboxStore = outboxStore;
+        this.batchSize = batchSize;
+        this.minDelayMs = minDelayMs;
+        this.maxIdleDelayMs = maxIdleDelayMs;
+        this.backlogRefreshMs = backlogRefreshMs;
+
+        Gauge.builder("outbox.poll.interval", currentDelayMs, AtomicLong::get)
+                .description("Delay before the next outbox poll")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get)
+                .description("NEW outbox events waiting to be published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs one poll and computes the delay before the next one.
+     *
+     * @return the next delay in milliseconds
+     */
+    public long pollOnce() {
+        long delay;
+        try {
+            int claimed = outboxPublisher.publishOutboxEvents();
+            if (claimed >= batchSize) {
+                delay = 0;
+            } else if (claimed > 0) {
+                delay = minDelayMs;
+            } else {
+                delay = Math.min(Math.max(currentDelayMs.get() * 2, minDelayMs), maxIdleDelayMs);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox poll failed, backing off: {}", e.getMessage());
+            delay = maxIdleDelayMs;
+        }
+        currentDelayMs.set(delay);
+        return delay;
+    }
+
+    /**
+     * Recounts the NEW events behind the backlog gauge.
+     */
+    public void refreshBacklog() {
+        try {
+            backlog.set(outboxStore.countPending());
+        } catch (RuntimeException e) {
+            log.warn("Outbox backlog refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        // A fresh scheduler per start, so the poller can be started again after stop()
+        ThreadPoolTaskScheduler started = new ThreadPoolTaskScheduler();
+        started.setPoolSize(2);
+        started.setThreadNamePrefix("outbox-poller-");
+        started.initialize();
+        scheduler = started;
+        running = true;
+        scheduleNext(started, 0);
+        started.scheduleWithFixedDelay(this::refreshBacklog, Duration.ofMillis(backlogRefreshMs));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ThreadPoolTaskScheduler current = scheduler;
+        if (current != null) {
+            current.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollAndReschedule(ThreadPoolTaskScheduler owner) {
+        long delay = maxIdleDelayMs;
+        try {
+            delay = pollOnce();
+        } finally {
+            // Even an Error thrown by the poll must not end the chain of polls
+            scheduleNext(owner, delay);
+        }
+    }
+
+    private void scheduleNext(ThreadPoolTaskScheduler owner, long delayMs) {
+        // A poll still running from before a restart ends its chain; the new scheduler has its own
+        if (!running || owner != scheduler) {
+            return;
+        }
+        try {
+            owner.schedule(() -> pollAndReschedule(owner), owner.getClock().instant().plus(Duration.ofMillis(delayMs)));
+        } catch (TaskRejectedException e) {
+            log.debug("Outbox poller stopped, next poll not scheduled");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.bp.common.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Outbox engine tuning, bound from {@code app.outbox.*}.
+ * Defaults apply to every service unless overridden in its application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /**
+     * Lease owner name; defaults to the host name, or a random id outside containers.
+     */
+    private String instanceId;
+
+    /**
+     * Name that scopes outbox row ids into event ids; defaults to {@code spring.application.name}.
+     */
+    private String eventSource;
+
+    /**
+     * Max rows claimed per cycle (SELECT ... FOR UPDATE SKIP LOCKED LIMIT n).
+     */
+    private int batchSize = 200;
+
+    /**
+     * How long a claimed row stays invisible to other instances.
+     */
+    private long claimLeaseMs = 60000;
+
+    /**
+     * One deadline for all broker acks in a batch.
+     */
+    private long batchSendTimeoutMs = 10000;
+
+    /**
+     * Parallel send lanes; events are routed by Kafka key so per-key order is kept.
+     */
+    private int lanes = 4;
+
+    /**
+     * Topics published in the compact binary encoding instead of JSON. Switch a topic
+     * only once every consumer of it reads the content type header.
+     */
+    private Set<String> binaryTopics = new HashSet<>();
+
+    private final Poll poll = new Poll();
+    private final FastPath fastPath = new FastPath();
+    private final Retry retry = new Retry();
+    private final Retention retention = new Retention();
+
+    /**
+     * Adaptive sweep pacing.
+     */
+    @Data
+    public static class Poll {
+        /**
+         * Delay after a partial batch; a full batch re-polls immediately.
+         */
+        private long minDelayMs = 50;
+
+        /**
+         * Empty polls double the delay up to this.
+         */
+        private long maxIdleDelayMs = 5000;
+
+        /**
+         * How often the outbox.backlog gauge recounts NEW rows; scrapes read the cached value.
+         */
+        private long backlogRefreshMs = 15000;
+    }
+
+    /**
+     * After-commit publishing.
+     */
+    @Data
+    public static class FastPath {
+        private boolean enabled = true;
+        private int threads = 2;
+
+        /**
+         * Dispatches beyond this are left to the sweep.
+         */
+        private int queueCapacity = 1000;
+    }
+
+    /**
+     * Re-driving FAILED rows.
+     */
+    @Data
+    public static class Retry {
+        /**
+         * How often FAILED rows are checked for an elapsed backoff; read by the scheduler.
+         */
+        private long fixedDelayMs = 10000;
+
+        /**
+         * Max FAILED rows re-driven per sweep.
+         */
+        private int batchSize = 50;
+
+        /**
+         * First retry delay, doubled per attempt.
+         */
+        private long baseDelayMs = 1000;
+
+        /**
+         * Cap for a single delay.
+         */
+        private long maxDelayMs = 300000;
+
+        /**
+         * After this many failures the row is parked as DEAD.
+         */
+        private int maxAttempts = 10;
+    }
+
+    /**
+     * Purging SENT rows.
+     */
+    @Data
+    public static class Retention {
+        private boolean enabled = true;
+
+        /**
+         * How often a purge run starts; read by the scheduler.
+         */
+        private long fixedDelayMs = 900000;
+
+        /**
+         * SENT rows older than this are purged.
+         */
+        private long sentMaxAgeHours = 168;
+
+        /**
+         * Rows deleted per transaction.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * A run yields after this many chunks; the rest waits for the next run.
+         */
+        private int maxChunksPerRun = 50;
+    }
+}
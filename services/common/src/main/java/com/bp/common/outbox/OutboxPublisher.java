@@ -0,0 +1,319 @@
+package com.bp.common.outbox;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.events.codec.BinaryEventCodec;
+import com.bp.common.events.codec.EventContentType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The outbox engine: claims rows from an {@link OutboxStore} and publishes them to Kafka.
+ * <p>
+ * Each cycle runs in three phases: claim rows in a short transaction, send them
+ * to Kafka outside of any transaction, then write the results back in a second
+ * short transaction. A slow broker therefore never pins a database connection.
+ * <p>
+ * A row whose send is still queued on its lane when the batch deadline passes is
+ * abandoned: its lane skips it, and it is written back as FAILED for the retry
+ * sweep. A row already handed to the producer stays claimed instead. Its ack, or
+ * failure, is written back when it arrives, on the next poll, so a slow broker does
+ * not turn into a second send of the same row.
+ */
+@Slf4j
+public class OutboxPublisher {
+
+    private final OutboxStore outboxStore;
+    private final OutboxEventTypeRegistry eventTypes;
+    private final OutboxTopicRouter topicRouter;
+    private final OutboxKafkaSender sender;
+    private final OutboxDispatchLanes dispatchLanes;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer dispatchTimer;
+    private final Queue<Long> lateSentIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> lateFailedIds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Instantiates a new Outbox publisher.
+     *
+     * @param outboxStore   the outbox store
+     * @param eventTypes    the registered event types
+     * @param topicRouter   the topic router
+     * @param sender        the raw Kafka sender
+     * @param dispatchLanes the key-hashed dispatch lanes
+     * @param objectMapper  the object mapper, used to derive missing keys and to re-encode binary topics
+     * @param properties    the outbox properties
+     * @param meterRegistry the meter registry
+     */
+    public OutboxPublisher(
+            OutboxStore outboxStore,
+            OutboxEventTypeRegistry eventTypes,
+            OutboxTopicRouter topicRouter,
+            OutboxKafkaSender sender,
+            OutboxDispatchLanes dispatchLanes,
+            ObjectMapper objectMapper,
+            OutboxProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.outboxStore = outboxStore;
+        this.eventTypes = eventTypes;
+        this.topicRouter = topicRouter;
+        this.sender = sender;
+        this.dispatchLanes = dispatchLanes;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.sentCounter = Counter.builder("outbox.events.sent")
+                .description("Outbox events acknowledged by the broker")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events.failed")
+                .description("Outbox events that could not be published")
+                .register(meterRegistry);
+        this.dispatchTimer = Timer.builder("outbox.dispatch")
+                .description("Time to send a claimed batch and collect its acks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims and publishes the next batch of NEW events.
+     * Driven by {@link OutboxPoller}, which uses the returned count to pace itself.
+     *
+     * @return the number of events claimed
+     */
+    public int publishOutboxEvents() {
+        recordLateResults();
+        List<? extends OutboxRecord> newEvents =
+                outboxStore.claimNextBatch(properties.getInstanceId(), leaseDuration(), properties.getBatchSize());
+
+        if (newEvents.isEmpty()) {
+            return 0;
+        }
+
+        log.info("Outbox: publishing {} new events", newEvents.size());
+        dispatch(newEvents);
+        return newEvents.size();
+    }
+
+    /**
+     * Re-drives FAILED events whose backoff has elapsed. The small batch size
+     * keeps recovery after a broker outage from turning into a replay storm.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.retry.fixed-delay-ms:10000}")
+    public void retryFailedEvents() {
+        List<? extends OutboxRecord> dueEvents = outboxStore.claimDueRetries(
+                properties.getInstanceId(), leaseDuration(), properties.getRetry().getBatchSize());
+
+        if (dueEvents.isEmpty()) {
+            return;
+        }
+
+        log.info("Outbox: retrying {} failed events", dueEvents.size());
+        dispatch(dueEvents);
+    }
+
+    /**
+     * Publishes the given events right away if nobody else has claimed them yet.
+     *
+     * @param outboxEventIds the outbox event ids
+     */
+    public void publishNow(Collection<Long> outboxEventIds) {
+        List<? extends OutboxRecord> claimed =
+                outboxStore.claimByIds(outboxEventIds, properties.getInstanceId(), leaseDuration());
+
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        dispatch(claimed);
+    }
+
+    private void dispatch(List<? extends OutboxRecord> newEvents) {
+        List<Long> sentIds = new ArrayList<>(newEvents.size());
+        List<Long> failedIds = new ArrayList<>();
+        List<InFlight> inFlight = new ArrayList<>(newEvents.size());
+        Timer.Sample sample = Timer.start();
+
+        // Pipelined dispatch: hand the whole batch to the key-hashed lanes first,
+        // then wait for all broker acks together under a single deadline.
+        // Same key, same lane: per-key order holds while other keys send in parallel.
+        for (OutboxRecord event : newEvents) {
+            Optional<OutboxEventType<?>> type = eventTypes.find(event.getEventType());
+            if (type.isEmpty()) {
+                log.error("Outbox: unsupported event type={} eventId={}", event.getEventType(), event.getId());
+                failedIds.add(event.getId());
+                continue;
+            }
+            try {
+                String key = messageKey(type.get(), event);
+                String topic = topicRouter.topicFor(type.get(), event);
+                Supplier<CompletableFuture<SendResult<String, byte[]>>> send = sendFor(type.get(), event, topic, key);
+                AtomicReference<SendState> state = new AtomicReference<>(SendState.QUEUED);
+
+                inFlight.add(new InFlight(event, state, dispatchLanes.submit(key, () -> {
+                    // Given up on at the deadline and left to the retry sweep; sending it now would duplicate it
+                    if (!state.compareAndSet(SendState.QUEUED, SendState.SENDING)) {
+                        throw new CancellationException("abandoned at the batch deadline");
+                    }
+                    return send.get();
+                }).thenCompose(ack -> ack)));
+
+            } catch (JsonProcessingException e) {
+                log.error("Outbox: payload could not be read eventId={}: {}", event.getId(), e.getMessage());
+                failedIds.add(event.getId());
+            } catch (RuntimeException e) {
+                log.error("Outbox: dispatch rejected eventId={}: {}", event.getId(), e.getMessage());
+                failedIds.add(event.getId());
+            }
+        }
+
+        awaitAcks(inFlight);
+
+        // Each row is judged by its own future — one slow or failed ack
+        // does not affect the rest of the batch.
+        for (InFlight sent : inFlight) {
+            OutboxRecord event = sent.event();
+            if (sent.ack().isDone() && !sent.ack().isCompletedExceptionally()) {
+                sentIds.add(event.getId());
+                log.debug("Outbox: sent eventId={} key={}", event.getId(), event.getMessageKey());
+            } else if (sent.ack().isDone() || sent.state().compareAndSet(SendState.QUEUED, SendState.ABANDONED)) {
+                log.error("Outbox: Kafka send failed eventId={}: {}", event.getId(), describeFailure(sent.ack()));
+                failedIds.add(event.getId());
+            } else {
+                // In the producer already: keep the claim and record the outcome once it is known
+                log.warn("Outbox: no ack within batch deadline eventId={}, recording it when it arrives", event.getId());
+                sent.ack().whenComplete((ack, failure) -> (failure == null ? lateSentIds : lateFailedIds).add(event.getId()));
+            }
+        }
+        sample.stop(dispatchTimer);
+        sentCounter.increment(sentIds.size());
+        failedCounter.increment(failedIds.size());
+
+        // Batch update — one UPDATE per resulting status instead of N individual ones
+        outboxStore.recordResults(properties.getInstanceId(), sentIds, failedIds);
+    }
+
+    private <T> Supplier<CompletableFuture<SendResult<String, byte[]>>> sendFor(
+            OutboxEventType<T> type, OutboxRecord event, String topic, String key) throws JsonProcessingException {
+        EventEnvelope envelope = envelope(event, key);
+        if (properties.getBinaryTopics().contains(topic) && BinaryEventCodec.supports(type.eventClass())) {
+            byte[] payload = BinaryEventCodec.encode(objectMapper.readValue(event.getPayload(), type.eventClass()));
+            return () -> sender.sendEncoded(topic, key, EventContentType.BINARY, payload, envelope);
+        }
+        // JSON topics: the stored JSON goes out as-is; no parse and re-serialize round trip
+        String typeId = type.eventClass().getName();
+        byte[] payload = event.getPayload().getBytes(StandardCharsets.UTF_8);
+        return () -> sender.send(topic, key, typeId, payload, envelope);
+    }
+
+    /**
+     * The event id is derived from the row id, so a row that is re-driven after a
+     * lost ack goes out with the same id and consumers can drop the duplicate.
+     * Every topic is keyed by the reservation a flow belongs to, so the key doubles
+     * as the correlation id.
+     */
+    private EventEnvelope envelope(OutboxRecord event, String key) {
+        String eventId = UUID.nameUUIDFromBytes(
+                (properties.getEventSource() + ":" + event.getId()).getBytes(StandardCharsets.UTF_8)).toString();
+        return new EventEnvelope(eventId, key, toInstant(event.getOccurredAt()), toInstant(event.getCreatedAt()), null);
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        // Outbox timestamps are written with LocalDateTime.now(), i.e. in the JVM zone
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private <T> String messageKey(OutboxEventType<T> type, OutboxRecord event) throws JsonProcessingException {
+        if (event.getMessageKey() != null) {
+            return event.getMessageKey();
+        }
+        // Rows written before messageKey existed: derive it from the event itself
+        return type.keyExtractor().apply(objectMapper.readValue(event.getPayload(), type.eventClass()));
+    }
+
+    private Duration leaseDuration() {
+        return Duration.ofMillis(properties.getClaimLeaseMs());
+    }
+
+    private void recordLateResults() {
+        List<Long> sentIds = drain(lateSentIds);
+        List<Long> failedIds = drain(lateFailedIds);
+        if (sentIds.isEmpty() && failedIds.isEmpty()) {
+            return;
+        }
+        log.info("Outbox: recording {} acks and {} failures that arrived after the batch deadline",
+                sentIds.size(), failedIds.size());
+        sentCounter.increment(sentIds.size());
+        failedCounter.increment(failedIds.size());
+        outboxStore.recordResults(properties.getInstanceId(), sentIds, failedIds);
+    }
+
+    private static List<Long> drain(Queue<Long> ids) {
+        List<Long> drained = new ArrayList<>();
+        for (Long id = ids.poll(); id != null; id = ids.poll()) {
+            drained.add(id);
+        }
+        return drained;
+    }
+
+    private void awaitAcks(List<InFlight> inFlight) {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        long timeoutMs = properties.getBatchSendTimeoutMs();
+        try {
+            CompletableFuture.allOf(inFlight.stream().map(InFlight::ack).toArray(CompletableFuture[]::new))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // At least one send failed; the per-event pass below sorts out which.
+        } catch (TimeoutException e) {
+            log.warn("Outbox: batch deadline of {} ms exceeded", timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Outbox: interrupted while awaiting broker acks");
+        }
+    }
+
+    private String describeFailure(CompletableFuture<?> future) {
+        if (!future.isDone()) {
+            return "not sent within batch deadline";
+        }
+        try {
+            future.getNow(null);
+            return "unknown";
+        } catch (RuntimeException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        }
+    }
+
+    private enum SendState { QUEUED, SENDING, ABANDONED }
+
+    private record InFlight(OutboxRecord event, AtomicReference<SendState> state, CompletableFuture<?> ack) {}
+}
@@ -0,0 +1,55 @@
+package com.bp.common.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * The view of an outbox row the engine needs to publish it.
+ * Implemented by each service's own outbox entity.
+ */
+public interface OutboxRecord {
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    Long getId();
+
+    /**
+     * Gets the stored event type, either the simple or the fully qualified class name.
+     *
+     * @return the event type
+     */
+    String getEventType();
+
+    /**
+     * Gets the Kafka record key; {@code null} on rows written before keys were stored.
+     *
+     * @return the message key
+     */
+    String getMessageKey();
+
+    /**
+     * Gets the JSON payload.
+     *
+     * @return the payload
+     */
+    String getPayload();
+
+    /**
+     * Gets when the row was written, i.e. when the event was enqueued.
+     *
+     * @return the created at
+     */
+    LocalDateTime getCreatedAt();
+
+    /**
+     * Gets when the business change behind the event happened. Rows are written in
+     * the change's own transaction, so by default this is the row's creation time.
+     *
+     * @return the occurred at
+     */
+    default LocalDateTime getOccurredAt() {
+        return getCreatedAt();
+    }
+}
@@ -0,0 +1,74 @@
+package com.bp.common.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Purges SENT outbox rows once they are older than the retention window.
+ * <p>
+ * Rows are deleted in small chunks, each in its own transaction, so a run never
+ * holds long locks or produces one huge delete for vacuum to chew through.
+ * A run stops after a bounded number of chunks; any backlog is finished next time.
+ */
+@Slf4j
+public class OutboxRetentionJob {
+
+    private final OutboxStore outboxStore;
+    private final boolean enabled;
+    private final Duration sentMaxAge;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    /**
+     * Instantiates a new Outbox retention job.
+     *
+     * @param outboxStore     the outbox store
+     * @param enabled         whether purging is active
+     * @param sentMaxAgeHours how long SENT rows are kept
+     * @param chunkSize       the number of rows deleted per transaction
+     * @param maxChunksPerRun the number of chunks after which a run yields
+     */
+    public OutboxRetentionJob(
+            OutboxStore outboxStore,
+            boolean enabled,
+            long sentMaxAgeHours,
+            int chunkSize,
+            int maxChunksPerRun
+    ) {
+        this.outboxStore = outboxStore;
+        this.enabled = enabled;
+        this.sentMaxAge = Duration.ofHours(sentMaxAgeHours);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * Purge expired SENT rows.
+     *
+     * @return the number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.retention.fixed-delay-ms:900000}")
+    public int purgeSentEvents() {
+        if (!enabled) {
+            return 0;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(sentMaxAge);
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int deleted = outboxStore.purgeSentBefore(cutoff, chunkSize);
+            total += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Outbox retention: purged {} SENT events created before {}", total, cutoff);
+        }
+        return total;
+    }
+}
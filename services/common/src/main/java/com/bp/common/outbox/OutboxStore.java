@@ -0,0 +1,71 @@
+package com.bp.common.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistence SPI the outbox engine runs against.
+ * <p>
+ * Each service implements it over its own outbox table. Every method is expected
+ * to run in its own short transaction; the engine never calls the store while
+ * holding one open across Kafka sends.
+ */
+public interface OutboxStore {
+
+    /**
+     * Claims the next batch of NEW events for the given owner.
+     *
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @param limit the maximum number of rows to claim
+     * @return the claimed events
+     */
+    List<? extends OutboxRecord> claimNextBatch(String owner, Duration lease, int limit);
+
+    /**
+     * Claims FAILED events whose retry backoff has elapsed.
+     *
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @param limit the maximum number of rows to claim
+     * @return the claimed events
+     */
+    List<? extends OutboxRecord> claimDueRetries(String owner, Duration lease, int limit);
+
+    /**
+     * Claims the given events if they are still NEW and nobody else holds them.
+     *
+     * @param ids   the outbox event ids
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @return the claimed events
+     */
+    List<? extends OutboxRecord> claimByIds(Collection<Long> ids, String owner, Duration lease);
+
+    /**
+     * Writes back the outcome of a dispatch.
+     *
+     * @param owner     the instance that claimed the rows
+     * @param sentIds   the ids acknowledged by the broker
+     * @param failedIds the ids that could not be published
+     */
+    void recordResults(String owner, Collection<Long> sentIds, Collection<Long> failedIds);
+
+    /**
+     * Counts NEW events waiting to be published.
+     *
+     * @return the backlog size
+     */
+    long countPending();
+
+    /**
+     * Deletes one chunk of SENT events created before the cutoff.
+     *
+     * @param cutoff the creation time before which SENT rows are expired
+     * @param limit  the maximum number of rows to delete
+     * @return the number of rows deleted
+     */
+    int purgeSentBefore(LocalDateTime cutoff, int limit);
+}
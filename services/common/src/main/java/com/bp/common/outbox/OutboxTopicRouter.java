@@ -0,0 +1,29 @@
+package com.bp.common.outbox;
+
+/**
+ * Chooses the Kafka topic for an outbox record.
+ * <p>
+ * The default routes every record to the topic its type was registered with;
+ * a service can declare its own bean to route by anything on the record.
+ */
+@FunctionalInterface
+public interface OutboxTopicRouter {
+
+    /**
+     * Topic for string.
+     *
+     * @param type   the registered event type
+     * @param record the outbox record
+     * @return the topic
+     */
+    String topicFor(OutboxEventType<?> type, OutboxRecord record);
+
+    /**
+     * Routes to the registered topic of the event type.
+     *
+     * @return the router
+     */
+    static OutboxTopicRouter byEventType() {
+        return (type, record) -> type.topic();
+    }
+}
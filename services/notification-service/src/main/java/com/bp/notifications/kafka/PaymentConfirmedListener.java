@@ -1,12 +1,20 @@
 package com.bp.notifications.kafka;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.notifications.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * The type Payment confirmed listener.
  */
@@ -16,18 +24,72 @@ import org.springframework.stereotype.Component;
 public class PaymentConfirmedListener {
 
     private final NotificationService notificationService;
+    private final KeyOrderedBatchProcessor keyOrderedProcessor;
+    private final IdempotentConsumer idempotentConsumer;
 
     /**
      * On payment confirmed.
      *
-     * @param event the event
+     * @param event   the event
+     * @param eventId the envelope event id, absent on records produced before it existed
+     */
+    @KafkaListener(
+            id = "notification-payment-confirmed",
+            topics = "${app.kafka.topics.payment-confirmed}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('payment-confirmed')}",
+            groupId = "notification-service-group",
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.batch-listener.enabled:true}}"
+    )
+    public void onPaymentConfirmed(
+            PaymentConfirmedEvent event,
+            @Header(name = EventEnvelope.EVENT_ID, required = false) byte[] eventId
+    ) {
+        idempotentConsumer.handle(IdempotentConsumer.eventId(eventId), event, notificationService::processPaymentConfirmation);
+    }
+
+    /**
+     * On payment confirmed batch.
+     * <p>
+     * The whole poll is written with one insert. If that fails, or in
+     * parallel-consumer mode, the records are processed one by one on the key-ordered
+     * worker pool; the lowest failing record is reported by index, records before it
+     * are committed and only that record moves to the retry tiers. Events already
+     * processed, by id, are dropped on either path, so a redelivery sends no second
+     * notification.
+     *
+     * @param events  the events of one poll
+     * @param keys    the record keys, aligned with {@code events}
+     * @param headers the per-record headers, aligned with {@code events}
      */
     @KafkaListener(
+            id = "notification-payment-confirmed-batch",
             topics = "${app.kafka.topics.payment-confirmed}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('payment-confirmed')}",
             groupId = "notification-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${app.kafka.batch-listener.enabled:true}"
     )
-    public void onPaymentConfirmed(PaymentConfirmedEvent event) {
-        notificationService.processPaymentConfirmation(event);
+    public void onPaymentConfirmedBatch(
+            List<PaymentConfirmedEvent> events,
+            @Header(KafkaHeaders.RECEIVED_KEY) List<String> keys,
+            @Header(KafkaHeaders.BATCH_CONVERTED_HEADERS) List<Map<String, Object>> headers
+    ) {
+        List<String> eventIds = IdempotentConsumer.eventIds(headers);
+        if (keyOrderedProcessor.isParallelMode()) {
+            processOneByOne(events, keys, eventIds);
+            return;
+        }
+        try {
+            idempotentConsumer.handleAll(eventIds, events, notificationService::processPaymentConfirmations);
+        } catch (RuntimeException batchFailure) {
+            log.warn("Notification batch of {} failed, falling back to per-record: {}", events.size(), batchFailure.getMessage());
+            processOneByOne(events, keys, eventIds);
+        }
+    }
+
+    private void processOneByOne(List<PaymentConfirmedEvent> events, List<String> keys, List<String> eventIds) {
+        keyOrderedProcessor.processIndexed(events, keys, (event, i) -> idempotentConsumer.handle(
+                i < eventIds.size() ? eventIds.get(i) : null, event, notificationService::processPaymentConfirmation));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.bp.notifications.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Set-based writes for {@link com.bp.notifications.entity.NotificationLog}.
+ */
+public interface NotificationLogBulkRepository {
+
+    /**
+     * Insert one notification log per payment id, skipping rows that already exist.
+     *
+     * @param paymentIds the payment ids
+     * @param eventType  the event type
+     * @param sentAt     the sent at
+     * @return the number of rows actually inserted
+     */
+    int insertAllIgnoringDuplicates(Collection<Long> paymentIds, String eventType, LocalDateTime sentAt);
+}
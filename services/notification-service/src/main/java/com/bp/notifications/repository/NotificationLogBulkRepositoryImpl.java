@@ -0,0 +1,52 @@
+package com.bp.notifications.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link NotificationLogBulkRepository}.
+ * <p>
+ * Each chunk is a single multi-row {@code INSERT ... ON CONFLICT DO NOTHING}: the
+ * unique (payment_id, event_type) constraint does the duplicate check, so there is
+ * no SELECT up front and no constraint violation to catch afterwards.
+ */
+@RequiredArgsConstructor
+public class NotificationLogBulkRepositoryImpl implements NotificationLogBulkRepository {
+
+    // Three bind parameters per row; stays far below the driver's 32767 limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAllIgnoringDuplicates(Collection<Long> paymentIds, String eventType, LocalDateTime sentAt) {
+        List<Long> ids = new ArrayList<>(paymentIds);
+        Timestamp timestamp = Timestamp.valueOf(sentAt);
+        int inserted = 0;
+
+        for (int from = 0; from < ids.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, ids.size()));
+
+            String sql = "INSERT INTO notification_logs (payment_id, event_type, sent_at) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)"))
+                    + " ON CONFLICT (payment_id, event_type) DO NOTHING";
+
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i * 3] = chunk.get(i);
+                args[i * 3 + 1] = eventType;
+                args[i * 3 + 2] = timestamp;
+            }
+
+            inserted += jdbcTemplate.update(sql, args);
+        }
+        return inserted;
+    }
+}
@@ -6,7 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 /**
  * The interface Notification log repository.
  */
-public interface NotificationLogRepository extends JpaRepository<NotificationLog, Long> {
+public interface NotificationLogRepository extends JpaRepository<NotificationLog, Long>, NotificationLogBulkRepository {
     /**
      * Exists by payment id boolean.
      *
@@ -11,6 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * The type Notification service.
@@ -79,4 +82,46 @@ public class NotificationService {
             log.warn("Race condition while saving notification log, skipping");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Process a whole poll of payment confirmations.
+     *
+     * @param events the events
+     * @return the number of notifications sent
+     */
+    @Transactional
+    public int processPaymentConfirmations(List<PaymentConfirmedEvent> events) {
+        Set<Long> paymentIds = new LinkedHashSet<>();
+        events.forEach(event -> paymentIds.add(event.paymentId()));
+
+        return recordNotifications(PaymentConfirmedEvent.class.getSimpleName(), paymentIds, events.size());
+    }
+
+    /**
+     * Process a whole poll of payment failures.
+     *
+     * @param events the events
+     * @return the number of notifications sent
+     */
+    @Transactional
+    public int processPaymentFailures(List<PaymentFailedEvent> events) {
+        Set<Long> paymentIds = new LinkedHashSet<>();
+        events.forEach(event -> paymentIds.add(event.paymentId()));
+
+        return recordNotifications(PaymentFailedEvent.class.getSimpleName(), paymentIds, events.size());
+    }
+
+    private int recordNotifications(String eventType, Set<Long> paymentIds, int received) {
+        if (paymentIds.isEmpty()) {
+            return 0;
+        }
+
+        // One INSERT ... ON CONFLICT DO NOTHING per poll: duplicates are skipped by the
+        // unique (paymentId, eventType) constraint instead of a SELECT per event
+        int sent = notificationLogRepository.insertAllIgnoringDuplicates(paymentIds, eventType, LocalDateTime.now());
+
+        log.info("{} notifications sent: received={}, sent={}, duplicates={}",
+                eventType, received, sent, received - sent);
+        return sent;
+    }
+}
@@ -12,6 +12,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -98,4 +104,38 @@ class NotificationServiceTest {
 
         verify(repository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    // ---------- BATCH ----------
+
+    @Test
+    void shouldInsertWholePollOnce_forPaymentConfirmed() {
+        when(repository.insertAllIgnoringDuplicates(anyCollection(), eq("PaymentConfirmedEvent"), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        int sent = service.processPaymentConfirmations(List.of(
+                new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED),
+                new PaymentConfirmedEvent(2L, 11L, PaymentStatus.CONFIRMED),
+                new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED)
+        ));
+
+        assertEquals(1, sent);
+        verify(repository).insertAllIgnoringDuplicates(eq(Set.of(1L, 2L)), eq("PaymentConfirmedEvent"), any(LocalDateTime.class));
+        verify(repository, never()).existsByPaymentIdAndEventType(any(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void shouldInsertWholePollOnce_forPaymentFailed() {
+        when(repository.insertAllIgnoringDuplicates(anyCollection(), eq("PaymentFailedEvent"), any(LocalDateTime.class)))
+                .thenReturn(2);
+
+        int sent = service.processPaymentFailures(List.of(
+                new PaymentFailedEvent(1L, 10L, "Not enough funds"),
+                new PaymentFailedEvent(2L, 11L, "Card expired")
+        ));
+
+        assertEquals(2, sent);
+        verify(repository).insertAllIgnoringDuplicates(eq(Set.of(1L, 2L)), eq("PaymentFailedEvent"), any(LocalDateTime.class));
+        verify(repository, never()).existsByPaymentIdAndEventType(any(), any());
+    }
+}
@@ -2,16 +2,30 @@ package com.bp.notifications.api;
 
 import com.bp.common.events.PaymentConfirmedEvent;
 import com.bp.common.events.PaymentStatus;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.idempotency.ProcessedEventStore;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.notifications.kafka.PaymentConfirmedListener;
 import com.bp.notifications.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentConfirmedListenerTest {
@@ -19,9 +33,23 @@ class PaymentConfirmedListenerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Spy
+    private KeyOrderedBatchProcessor keyOrderedProcessor = new KeyOrderedBatchProcessor(false, 2);
+
+    private final ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+
+    @Spy
+    private IdempotentConsumer idempotentConsumer = new IdempotentConsumer(
+            processedEventStore, TransactionOperations.withoutTransaction(), 100, new SimpleMeterRegistry());
+
     @InjectMocks
     private PaymentConfirmedListener listener;
 
+    @AfterEach
+    void tearDown() {
+        keyOrderedProcessor.destroy();
+    }
+
     @Test
     void shouldDelegateEventToService() {
         // given
@@ -32,10 +60,46 @@ class PaymentConfirmedListenerTest {
         );
 
         // when
-        listener.onPaymentConfirmed(event);
+        listener.onPaymentConfirmed(event, null);
 
         // then
         verify(notificationService).processPaymentConfirmation(event);
         verifyNoMoreInteractions(notificationService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldDelegateWholeBatchToService() {
+        // given
+        var events = List.of(
+                new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED),
+                new PaymentConfirmedEvent(2L, 11L, PaymentStatus.CONFIRMED)
+        );
+
+        // when
+        listener.onPaymentConfirmedBatch(events, keys(events), List.of());
+
+        // then
+        verify(notificationService).processPaymentConfirmations(events);
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void shouldNotNotifyTwiceForRedeliveredEvent() {
+        // given
+        var event = new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED);
+        byte[] eventId = "event-1".getBytes(StandardCharsets.UTF_8);
+        when(processedEventStore.insertNew(List.of("event-1"))).thenReturn(Set.of("event-1"));
+
+        // when
+        listener.onPaymentConfirmed(event, eventId);
+        listener.onPaymentConfirmed(event, eventId);
+
+        // then
+        verify(notificationService, times(1)).processPaymentConfirmation(event);
+        verify(processedEventStore, times(1)).insertNew(List.of("event-1"));
+    }
+
+    private List<String> keys(List<PaymentConfirmedEvent> events) {
+        return events.stream().map(event -> String.valueOf(event.reservationId())).toList();
+    }
+}
@@ -1,16 +1,28 @@
 package com.bp.notifications.api;
 
 import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.idempotency.ProcessedEventStore;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.notifications.kafka.PaymentFailedListener;
 import com.bp.notifications.service.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentFailedListenerTest {
@@ -18,9 +30,23 @@ class PaymentFailedListenerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Spy
+    private KeyOrderedBatchProcessor keyOrderedProcessor = new KeyOrderedBatchProcessor(false, 2);
+
+    private final ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+
+    @Spy
+    private IdempotentConsumer idempotentConsumer = new IdempotentConsumer(
+            processedEventStore, TransactionOperations.withoutTransaction(), 100, new SimpleMeterRegistry());
+
     @InjectMocks
     private PaymentFailedListener listener;
 
+    @AfterEach
+    void tearDown() {
+        keyOrderedProcessor.destroy();
+    }
+
     @Test
     void shouldDelegateEventToService() {
         // given
@@ -31,10 +57,33 @@ class PaymentFailedListenerTest {
         );
 
         // when
-        listener.onPaymentFailed(event);
+        listener.onPaymentFailed(event, null);
 
         // then
         verify(notificationService).processPaymentFailure(event);
         verifyNoMoreInteractions(notificationService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReportFailingRecordIndexWhenBatchFails() {
+        // given
+        var ok = new PaymentFailedEvent(1L, 10L, "Not enough funds");
+        var poison = new PaymentFailedEvent(2L, 11L, "Card expired");
+        var events = List.of(ok, poison);
+
+        when(notificationService.processPaymentFailures(events)).thenThrow(new IllegalStateException("batch failed"));
+        doNothing().when(notificationService).processPaymentFailure(ok);
+        doThrow(new IllegalStateException("bad record")).when(notificationService).processPaymentFailure(poison);
+
+        // when
+        var thrown = assertThrows(BatchListenerFailedException.class, () -> listener.onPaymentFailedBatch(events, keys(events), List.of()));
+
+        // then
+        assertEquals(1, thrown.getIndex());
+        verify(notificationService).processPaymentFailure(ok);
+    }
+
+    private List<String> keys(List<PaymentFailedEvent> events) {
+        return events.stream().map(event -> String.valueOf(event.reservationId())).toList();
+    }
+}
@@ -1,48 +1,96 @@
 package com.bp.payments.config;
 
-import org.apache.kafka.common.TopicPartition;
+import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.idempotency.IdempotencyConfiguration;
+import com.bp.common.kafka.EventLatencyConfiguration;
+import com.bp.common.kafka.EventLatencyInterceptor;
+import com.bp.common.kafka.KafkaMetricsConfiguration;
+import com.bp.common.kafka.KafkaRetryConfiguration;
+import com.bp.common.kafka.KafkaScalingConfiguration;
+import com.bp.common.kafka.RetryTierHandlers;
+import com.bp.payments.service.PaymentService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.DefaultErrorHandler;
-import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
-import org.springframework.util.backoff.FixedBackOff;
 
 /**
  * The type Kafka consumer config.
+ * <p>
+ * Failed records leave their partition right away through the retry tiers of
+ * {@link KafkaRetryConfiguration} and end up on the service DLT.
  */
 @EnableKafka
 @Configuration
+@Import({KafkaScalingConfiguration.class, KafkaRetryConfiguration.class, EventLatencyConfiguration.class,
+        IdempotencyConfiguration.class, KafkaMetricsConfiguration.class})
 public class KafkaConsumerConfig {
 
-    @Value("${app.kafka.dlt-topic.payment-service}")
-    private String dltTopic;
+    @Value("${app.kafka.topics.reservation-created}")
+    private String reservationCreatedTopic;
 
     /**
      * Kafka listener container factory concurrent kafka listener container factory.
      *
-     * @param consumerFactory the consumer factory
-     * @param kafkaTemplate   the kafka template
+     * @param consumerFactory         the consumer factory
+     * @param kafkaRetryErrorHandler  the error handler
+     * @param eventLatencyInterceptor the event latency interceptor
      * @return the concurrent kafka listener container factory
      */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory,
-            KafkaTemplate<String, Object> kafkaTemplate
+            DefaultErrorHandler kafkaRetryErrorHandler,
+            EventLatencyInterceptor eventLatencyInterceptor
     ) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(kafkaRetryErrorHandler);
+        factory.setRecordInterceptor(eventLatencyInterceptor);
 
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
-                (r, e) -> new TopicPartition(dltTopic, r.partition()));
+        return factory;
+    }
 
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(1000L, 3L));
-        factory.setCommonErrorHandler(errorHandler);
+    /**
+     * Batch listener container factory: the listener receives a whole poll and
+     * offsets are committed once per batch. A listener that throws
+     * {@link org.springframework.kafka.listener.BatchListenerFailedException} gets the
+     * records before the failed index committed and only the failed one moved to the
+     * first retry tier.
+     *
+     * @param consumerFactory         the consumer factory
+     * @param kafkaRetryErrorHandler  the error handler
+     * @param eventLatencyInterceptor the event latency interceptor
+     * @return the concurrent kafka listener container factory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory,
+            DefaultErrorHandler kafkaRetryErrorHandler,
+            EventLatencyInterceptor eventLatencyInterceptor
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(kafkaRetryErrorHandler);
+        factory.setBatchInterceptor(eventLatencyInterceptor);
 
         return factory;
     }
+
+    /**
+     * Per-record handlers for records coming back from the retry tiers.
+     *
+     * @param paymentService the payment service
+     * @return the retry tier handlers
+     */
+    @Bean
+    public RetryTierHandlers retryTierHandlers(PaymentService paymentService) {
+        return new RetryTierHandlers()
+                .register(reservationCreatedTopic, ReservationCreatedEvent.class, paymentService::processPayment);
+    }
 }
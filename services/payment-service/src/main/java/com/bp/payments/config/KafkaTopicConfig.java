@@ -1,5 +1,6 @@
 package com.bp.payments.config;
 
+import com.bp.common.kafka.KafkaScalingProperties;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -21,12 +22,13 @@ public class KafkaTopicConfig {
     /**
      * Payment confirmed topic new topic.
      *
+     * @param kafkaScaling the kafka scaling properties
      * @return the new topic
      */
     @Bean
-    public NewTopic paymentConfirmedTopic() {
+    public NewTopic paymentConfirmedTopic(KafkaScalingProperties kafkaScaling) {
         return TopicBuilder.name(paymentConfirmedTopic)
-                .partitions(1)
+                .partitions(kafkaScaling.partitionsFor("payment-confirmed"))
                 .replicas(1)
                 .build();
     }
@@ -34,12 +36,13 @@ public class KafkaTopicConfig {
     /**
      * Payment failed topic new topic.
      *
+     * @param kafkaScaling the kafka scaling properties
      * @return the new topic
      */
     @Bean
-    public NewTopic paymentFailedTopic() {
+    public NewTopic paymentFailedTopic(KafkaScalingProperties kafkaScaling) {
         return TopicBuilder.name(paymentFailedTopic)
-                .partitions(1)
+                .partitions(kafkaScaling.partitionsFor("payment-failed"))
                 .replicas(1)
                 .build();
     }
@@ -0,0 +1,38 @@
+package com.bp.payments.config;
+
+import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.outbox.OutboxConfiguration;
+import com.bp.common.outbox.OutboxEventTypeRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The type Outbox config.
+ */
+@Configuration
+@Import(OutboxConfiguration.class)
+public class OutboxConfig {
+
+    @Value("${app.kafka.topics.payment-confirmed}")
+    private String paymentConfirmedTopic;
+
+    @Value("${app.kafka.topics.payment-failed}")
+    private String paymentFailedTopic;
+
+    /**
+     * Event types this service publishes through its outbox.
+     *
+     * @return the outbox event type registry
+     */
+    @Bean
+    public OutboxEventTypeRegistry outboxEventTypeRegistry() {
+        return new OutboxEventTypeRegistry()
+                .register(PaymentConfirmedEvent.class, paymentConfirmedTopic,
+                        event -> String.valueOf(event.reservationId()))
+                .register(PaymentFailedEvent.class, paymentFailedTopic,
+                        event -> String.valueOf(event.reservationId()));
+    }
+}
@@ -1,12 +1,20 @@
 package com.bp.payments.kafka;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.payments.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * The type Reservation created listener.
  */
@@ -16,19 +24,73 @@ import org.springframework.stereotype.Component;
 public class ReservationCreatedListener {
 
     private final PaymentService paymentService;
+    private final KeyOrderedBatchProcessor keyOrderedProcessor;
+    private final IdempotentConsumer idempotentConsumer;
 
     /**
      * On reservation created.
      *
-     * @param event the event
+     * @param event   the event
+     * @param eventId the envelope event id, absent on records produced before it existed
      */
     @KafkaListener(
+            id = "payment-reservation-created",
             topics = "${app.kafka.topics.reservation-created}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('reservation-created')}",
             groupId = "payment-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.batch-listener.enabled:true}}"
     )
-    public void onReservationCreated(ReservationCreatedEvent event) {
+    public void onReservationCreated(
+            ReservationCreatedEvent event,
+            @Header(name = EventEnvelope.EVENT_ID, required = false) byte[] eventId
+    ) {
         log.info("🔥 RECEIVED ReservationCreatedEvent: {}", event);
-        paymentService.processPayment(event);
+        idempotentConsumer.handle(IdempotentConsumer.eventId(eventId), event, paymentService::processPayment);
+    }
+
+    /**
+     * On reservation created batch.
+     * <p>
+     * The whole poll is handled in one transaction. If that fails, or in
+     * parallel-consumer mode, the records are processed one by one on the key-ordered
+     * worker pool; the lowest failing record is reported by index, records before it
+     * are committed and only that record moves to the retry tiers. Events already
+     * processed, by id, are dropped on either path.
+     *
+     * @param events  the events of one poll
+     * @param keys    the record keys, aligned with {@code events}
+     * @param headers the per-record headers, aligned with {@code events}
+     */
+    @KafkaListener(
+            id = "payment-reservation-created-batch",
+            topics = "${app.kafka.topics.reservation-created}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('reservation-created')}",
+            groupId = "payment-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${app.kafka.batch-listener.enabled:true}"
+    )
+    public void onReservationCreatedBatch(
+            List<ReservationCreatedEvent> events,
+            @Header(KafkaHeaders.RECEIVED_KEY) List<String> keys,
+            @Header(KafkaHeaders.BATCH_CONVERTED_HEADERS) List<Map<String, Object>> headers
+    ) {
+        log.info("RECEIVED {} ReservationCreatedEvents", events.size());
+        List<String> eventIds = IdempotentConsumer.eventIds(headers);
+        if (keyOrderedProcessor.isParallelMode()) {
+            processOneByOne(events, keys, eventIds);
+            return;
+        }
+        try {
+            idempotentConsumer.handleAll(eventIds, events, paymentService::processPayments);
+        } catch (RuntimeException batchFailure) {
+            log.warn("Payment batch of {} failed, falling back to per-record: {}", events.size(), batchFailure.getMessage());
+            processOneByOne(events, keys, eventIds);
+        }
+    }
+
+    private void processOneByOne(List<ReservationCreatedEvent> events, List<String> keys, List<String> eventIds) {
+        keyOrderedProcessor.processIndexed(events, keys, (event, i) -> idempotentConsumer.handle(
+                i < eventIds.size() ? eventIds.get(i) : null, event, paymentService::processPayment));
     }
 }
\ No newline at end of file
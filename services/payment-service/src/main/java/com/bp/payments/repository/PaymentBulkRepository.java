@@ -0,0 +1,19 @@
+package com.bp.payments.repository;
+
+import com.bp.payments.entity.Payment;
+
+import java.util.Collection;
+
+/**
+ * Bulk write operations for payments that bypass per-entity persistence.
+ */
+public interface PaymentBulkRepository {
+    /**
+     * Inserts the given payments in one JDBC batch, skipping any whose
+     * reservation already has a payment.
+     *
+     * @param payments the payments to insert
+     * @return the number of rows inserted
+     */
+    int insertAllIgnoringDuplicates(Collection<Payment> payments);
+}
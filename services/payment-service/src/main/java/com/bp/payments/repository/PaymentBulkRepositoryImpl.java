@@ -0,0 +1,44 @@
+package com.bp.payments.repository;
+
+import com.bp.payments.entity.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * JDBC implementation of {@link PaymentBulkRepository}.
+ * <p>
+ * Payment ids are IDENTITY columns, which keeps Hibernate from batching inserts;
+ * a plain JDBC batch sends the whole set in one round trip on the current transaction.
+ */
+@RequiredArgsConstructor
+public class PaymentBulkRepositoryImpl implements PaymentBulkRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO payments (reservation_id, amount, status, created_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (reservation_id) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertAllIgnoringDuplicates(Collection<Payment> payments) {
+        if (payments.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new ArrayList<>(payments), payments.size(),
+                (ps, payment) -> {
+                    ps.setLong(1, payment.getReservationId());
+                    ps.setBigDecimal(2, payment.getAmount());
+                    ps.setString(3, payment.getStatus().name());
+                    ps.setTimestamp(4, Timestamp.valueOf(payment.getCreatedAt()));
+                });
+        // Conflicting rows report 0; count only real inserts
+        return (int) Arrays.stream(counts).flatMapToInt(Arrays::stream).filter(c -> c > 0).count();
+    }
+}
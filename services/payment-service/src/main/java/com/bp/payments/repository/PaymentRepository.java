@@ -2,13 +2,17 @@ package com.bp.payments.repository;
 
 import com.bp.payments.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * The interface Payment repository.
  */
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, PaymentBulkRepository {
     /**
      * Find by reservation id optional.
      *
@@ -24,4 +28,13 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      * @return the boolean
      */
     boolean existsByReservationId(Long reservationId);
+
+    /**
+     * Returns which of the given reservations already have a payment, in one query.
+     *
+     * @param reservationIds the reservation ids
+     * @return the reservation ids that have a payment
+     */
+    @Query("select p.reservationId from Payment p where p.reservationId in :reservationIds")
+    Set<Long> findExistingReservationIds(@Param("reservationIds") Collection<Long> reservationIds);
 }
@@ -0,0 +1,149 @@
+package com.bp.payments.service;
+
+import com.bp.common.outbox.OutboxProperties;
+import com.bp.common.outbox.OutboxStore;
+import com.bp.payments.entity.OutboxEvent;
+import com.bp.payments.entity.OutboxEventStatus;
+import com.bp.payments.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@link OutboxStore} over this service's outbox table.
+ * <p>
+ * Rows are claimed (locked, leased, committed) and their results written back in
+ * separate transactions, so no connection is held while the publisher waits on Kafka.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxEventStore implements OutboxStore {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxProperties outboxProperties;
+
+    /**
+     * Claims the next batch of NEW events for the given owner.
+     *
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @param limit the maximum number of rows to claim
+     * @return the claimed events
+     */
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimNextBatch(String owner, Duration lease, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return claim(outboxEventRepository.lockNextBatch(now, limit), owner, now.plus(lease));
+    }
+
+    /**
+     * Claims FAILED events whose retry backoff has elapsed.
+     *
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @param limit the maximum number of rows to claim
+     * @return the claimed events
+     */
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimDueRetries(String owner, Duration lease, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return claim(outboxEventRepository.lockDueRetries(now, limit), owner, now.plus(lease));
+    }
+
+    /**
+     * Claims the given events if they are still NEW and nobody else holds them.
+     *
+     * @param ids   the outbox event ids
+     * @param owner the claiming instance
+     * @param lease how long the rows stay reserved for the owner
+     * @return the claimed events
+     */
+    @Override
+    @Transactional
+    public List<OutboxEvent> claimByIds(Collection<Long> ids, String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        return claim(outboxEventRepository.lockByIds(ids, now), owner, now.plus(lease));
+    }
+
+    /**
+     * Writes back the outcome of a dispatch with one UPDATE per status.
+     * Failed rows get their next attempt scheduled, or are parked as DEAD.
+     *
+     * @param owner     the instance that claimed the rows
+     * @param sentIds   the ids acknowledged by the broker
+     * @param failedIds the ids that could not be published
+     */
+    @Override
+    @Transactional
+    public void recordResults(String owner, Collection<Long> sentIds, Collection<Long> failedIds) {
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.complete(sentIds, owner, OutboxEventStatus.SENT);
+        }
+        if (!failedIds.isEmpty()) {
+            OutboxProperties.Retry retry = outboxProperties.getRetry();
+            outboxEventRepository.fail(failedIds, owner, LocalDateTime.now(),
+                    retry.getBaseDelayMs(), retry.getMaxDelayMs(), retry.getMaxAttempts());
+        }
+    }
+
+    /**
+     * Counts NEW events waiting to be published.
+     *
+     * @return the backlog size
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long countPending() {
+        return outboxEventRepository.countByStatus(OutboxEventStatus.NEW);
+    }
+
+    /**
+     * Gives FAILED events left without a due time by earlier versions one, once the
+     * application is ready, so the due-retry query needs no NULL branch.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void scheduleUndatedRetries() {
+        int scheduled = outboxEventRepository.scheduleUndatedRetries(LocalDateTime.now());
+        if (scheduled > 0) {
+            log.info("Scheduled {} FAILED outbox events without a due time for retry", scheduled);
+        }
+    }
+
+    /**
+     * Deletes one chunk of expired SENT events in its own transaction.
+     *
+     * @param cutoff the creation time before which SENT rows are expired
+     * @param limit  the maximum number of rows to delete
+     * @return the number of rows deleted
+     */
+    @Override
+    @Transactional
+    public int purgeSentBefore(LocalDateTime cutoff, int limit) {
+        return outboxEventRepository.purgeSentBefore(cutoff, limit);
+    }
+
+    private List<OutboxEvent> claim(List<OutboxEvent> locked, String owner, LocalDateTime leaseUntil) {
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        // Bulk update detaches the locked entities, so the stamps below are not flushed again
+        outboxEventRepository.claim(locked.stream().map(OutboxEvent::getId).toList(), owner, leaseUntil);
+        for (OutboxEvent event : locked) {
+            event.setClaimedBy(owner);
+            event.setClaimedUntil(leaseUntil);
+        }
+        return locked;
+    }
+}
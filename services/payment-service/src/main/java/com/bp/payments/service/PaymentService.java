@@ -3,6 +3,7 @@ package com.bp.payments.service;
 import com.bp.common.events.PaymentConfirmedEvent;
 import com.bp.common.events.PaymentFailedEvent;
 import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.outbox.OutboxEventSaved;
 import com.bp.payments.api.dto.CreatePaymentRequest;
 import com.bp.payments.api.dto.PaymentResponse;
 import com.bp.payments.entity.OutboxEvent;
@@ -16,12 +17,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The type Payment service.
@@ -34,6 +39,7 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Process payment.
@@ -73,6 +79,47 @@ public class PaymentService {
         );
     }
 
+    /**
+     * Process a whole poll of reservation created events in one transaction.
+     * <p>
+     * One {@code IN} query finds reservations that already have a payment, duplicates
+     * inside the poll are collapsed, and the remaining payments go out as a single
+     * JDBC batch. The insert also ignores conflicts, so a concurrent redelivery that
+     * slips past the check cannot fail the batch.
+     *
+     * @param events the events
+     * @return the number of payments created
+     */
+    @Transactional
+    public int processPayments(List<ReservationCreatedEvent> events) {
+        Map<Long, ReservationCreatedEvent> byReservation = new LinkedHashMap<>();
+        for (ReservationCreatedEvent event : events) {
+            byReservation.putIfAbsent(event.reservationId(), event);
+        }
+
+        Set<Long> existing = paymentRepository.findExistingReservationIds(byReservation.keySet());
+
+        List<Payment> payments = byReservation.values().stream()
+                .filter(event -> !existing.contains(event.reservationId()))
+                .map(event -> Payment.builder()
+                        .reservationId(event.reservationId())
+                        .amount(calculateAmount(event))
+                        .status(PaymentStatus.CREATED)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .toList();
+
+        int created = paymentRepository.insertAllIgnoringDuplicates(payments);
+
+        log.info(
+                "Payment batch processed: events={}, alreadyPaid={}, created={}",
+                events.size(),
+                existing.size(),
+                created
+        );
+        return created;
+    }
+
     /**
      * Create payment response.
      *
@@ -150,10 +197,12 @@ public class PaymentService {
                     .aggregateId(payment.getId())
                     .eventType(event.getClass().getName())
                     .payload(objectMapper.writeValueAsString(event))
+                    .messageKey(String.valueOf(event.reservationId()))
                     .status(OutboxEventStatus.NEW)
                     .createdAt(LocalDateTime.now())
                     .build();
             outboxEventRepository.save(outboxEvent);
+            eventPublisher.publishEvent(new OutboxEventSaved(List.of(outboxEvent.getId())));
             log.info("Outbox event saved for paymentId={} (Confirmed)", payment.getId());
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize PaymentConfirmedEvent for paymentId={}: {}", payment.getId(), e.getMessage());
@@ -216,11 +265,13 @@ public class PaymentService {
                     .aggregateId(payment.getId())
                     .eventType(event.getClass().getName()) // FQN — правильно
                     .payload(objectMapper.writeValueAsString(event))
+                    .messageKey(String.valueOf(event.reservationId()))
                     .status(OutboxEventStatus.NEW)
                     .createdAt(LocalDateTime.now())
                     .build();
 
             outboxEventRepository.save(outboxEvent);
+            eventPublisher.publishEvent(new OutboxEventSaved(List.of(outboxEvent.getId())));
 
             log.info(
                     "Outbox event saved: type=PaymentFailedEvent, paymentId={}",
@@ -1,5 +1,7 @@
 package com.bp.payments.api;
 
+import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.outbox.OutboxEventSaved;
 import com.bp.payments.api.dto.CreatePaymentRequest;
 import com.bp.payments.entity.OutboxEvent;
 import com.bp.payments.entity.Payment;
@@ -12,17 +14,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
-import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +45,9 @@ class PaymentServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -78,6 +89,34 @@ class PaymentServiceTest {
         verifyNoInteractions(outboxEventRepository);
     }
 
+    // ---------- BATCH ----------
+
+    @Test
+    void shouldCreatePaymentsOnlyForNewReservationsInBatch() {
+        var paid = reservationCreated(10L);
+        var fresh = reservationCreated(11L);
+        var redelivered = reservationCreated(11L);
+
+        when(paymentRepository.findExistingReservationIds(Set.of(10L, 11L)))
+                .thenReturn(Set.of(10L));
+        when(paymentRepository.insertAllIgnoringDuplicates(anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+
+        int created = paymentService.processPayments(List.of(paid, fresh, redelivered));
+
+        assertThat(created).isEqualTo(1);
+
+        ArgumentCaptor<Collection<Payment>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(paymentRepository).insertAllIgnoringDuplicates(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        Payment inserted = captor.getValue().iterator().next();
+        assertThat(inserted.getReservationId()).isEqualTo(11L);
+        assertThat(inserted.getStatus()).isEqualTo(PaymentStatus.CREATED);
+
+        verify(paymentRepository, never()).save(any(Payment.class));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
     // ---------- CONFIRM ----------
 
     @Test
@@ -86,6 +125,12 @@ class PaymentServiceTest {
                 .thenReturn(Optional.of(payment));
         when(objectMapper.writeValueAsString(any()))
                 .thenReturn("{\"payload\":\"json\"}");
+        when(outboxEventRepository.save(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> {
+                    OutboxEvent saved = invocation.getArgument(0);
+                    saved.setId(5L);
+                    return saved;
+                });
 
         var response = paymentService.confirm(1L);
 
@@ -93,6 +138,7 @@ class PaymentServiceTest {
         assertThat(payment.getStatus()).isEqualTo(PaymentStatus.CONFIRMED);
 
         verify(outboxEventRepository).save(any(OutboxEvent.class));
+        verify(eventPublisher).publishEvent(new OutboxEventSaved(List.of(5L)));
     }
 
     @Test
@@ -117,12 +163,19 @@ class PaymentServiceTest {
                 .thenReturn(Optional.of(payment));
         when(objectMapper.writeValueAsString(any()))
                 .thenReturn("{\"payload\":\"json\"}");
+        when(outboxEventRepository.save(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> {
+                    OutboxEvent saved = invocation.getArgument(0);
+                    saved.setId(6L);
+                    return saved;
+                });
 
         var response = paymentService.fail(1L, "Not enough funds");
 
         assertThat(response.status()).isEqualTo(PaymentStatus.FAILED);
 
         verify(outboxEventRepository).save(any(OutboxEvent.class));
+        verify(eventPublisher).publishEvent(new OutboxEventSaved(List.of(6L)));
     }
 
     @Test
@@ -139,6 +192,16 @@ class PaymentServiceTest {
         verifyNoInteractions(outboxEventRepository);
     }
 
+    private ReservationCreatedEvent reservationCreated(Long reservationId) {
+        return new ReservationCreatedEvent(
+                reservationId,
+                1L,
+                5L,
+                LocalDateTime.now(),
+                LocalDateTime.now().plusHours(2)
+        );
+    }
+
     // ---------- NOT FOUND ----------
 
     @Test
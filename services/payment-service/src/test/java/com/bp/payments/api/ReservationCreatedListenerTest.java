@@ -1,18 +1,35 @@
 package com.bp.payments.api;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.idempotency.ProcessedEventStore;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.payments.kafka.ReservationCreatedListener;
 import com.bp.payments.service.PaymentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ReservationCreatedListenerTest {
@@ -20,9 +37,23 @@ class ReservationCreatedListenerTest {
     @Mock
     private PaymentService paymentService;
 
+    @Spy
+    private KeyOrderedBatchProcessor keyOrderedProcessor = new KeyOrderedBatchProcessor(false, 2);
+
+    private final ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+
+    @Spy
+    private IdempotentConsumer idempotentConsumer = new IdempotentConsumer(
+            processedEventStore, TransactionOperations.withoutTransaction(), 100, new SimpleMeterRegistry());
+
     @InjectMocks
     private ReservationCreatedListener listener;
 
+    @AfterEach
+    void tearDown() {
+        keyOrderedProcessor.destroy();
+    }
+
     @Test
     void shouldProcessReservationCreatedEvent() {
         var event = new ReservationCreatedEvent(
@@ -33,9 +64,93 @@ class ReservationCreatedListenerTest {
                 LocalDateTime.now().plusHours(2)
         );
 
-        listener.onReservationCreated(event);
+        listener.onReservationCreated(event, null);
 
         verify(paymentService).processPayment(event);
         verifyNoMoreInteractions(paymentService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldSkipRedeliveredEvent() {
+        var event = event(10L);
+        byte[] eventId = "event-10".getBytes(StandardCharsets.UTF_8);
+        when(processedEventStore.insertNew(List.of("event-10"))).thenReturn(Set.of("event-10"));
+
+        listener.onReservationCreated(event, eventId);
+        listener.onReservationCreated(event, eventId);
+
+        verify(paymentService, times(1)).processPayment(event);
+        verify(processedEventStore, times(1)).insertNew(any());
+    }
+
+    @Test
+    void shouldProcessWholeBatchAtOnce() {
+        var events = List.of(event(10L), event(11L));
+
+        when(processedEventStore.insertNew(Set.of("event-10", "event-11"))).thenReturn(Set.of("event-10", "event-11"));
+
+        listener.onReservationCreatedBatch(events, keys(events), headers(events));
+
+        verify(paymentService).processPayments(events);
+        verifyNoMoreInteractions(paymentService);
+    }
+
+    @Test
+    void shouldDropAlreadyProcessedEventsFromBatch() {
+        var processed = event(10L);
+        var fresh = event(11L);
+        var events = List.of(processed, fresh);
+
+        when(processedEventStore.insertNew(Set.of("event-10", "event-11"))).thenReturn(Set.of("event-11"));
+
+        listener.onReservationCreatedBatch(events, keys(events), headers(events));
+
+        verify(paymentService).processPayments(List.of(fresh));
+        verifyNoMoreInteractions(paymentService);
+    }
+
+    @Test
+    void shouldReportFailingRecordIndexWhenBatchFails() {
+        var first = event(10L);
+        var poison = event(11L);
+        var otherKey = event(12L);
+        var events = List.of(first, poison, otherKey);
+
+        when(processedEventStore.insertNew(any())).thenAnswer(invocation -> new HashSet<>(invocation.getArgument(0)));
+        when(paymentService.processPayments(events)).thenThrow(new IllegalStateException("batch failed"));
+        doNothing().when(paymentService).processPayment(first);
+        doNothing().when(paymentService).processPayment(otherKey);
+        doThrow(new IllegalStateException("bad record")).when(paymentService).processPayment(poison);
+
+        assertThatThrownBy(() -> listener.onReservationCreatedBatch(events, keys(events), headers(events)))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getIndex()).isEqualTo(1));
+
+        verify(paymentService).processPayment(first);
+        verify(paymentService).processPayment(poison);
+        // Other keys are not held back by the failure; they are redelivered from the failed offset
+        verify(paymentService).processPayment(otherKey);
+        verifyNoMoreInteractions(paymentService);
+    }
+
+    private ReservationCreatedEvent event(Long reservationId) {
+        return new ReservationCreatedEvent(
+                reservationId,
+                1L,
+                5L,
+                LocalDateTime.now(),
+                LocalDateTime.now().plusHours(2)
+        );
+    }
+
+    private List<String> keys(List<ReservationCreatedEvent> events) {
+        return events.stream().map(event -> String.valueOf(event.reservationId())).toList();
+    }
+
+    private List<Map<String, Object>> headers(List<ReservationCreatedEvent> events) {
+        return events.stream()
+                .map(event -> Map.<String, Object>of(EventEnvelope.EVENT_ID,
+                        ("event-" + event.reservationId()).getBytes(StandardCharsets.UTF_8)))
+                .toList();
+    }
+}
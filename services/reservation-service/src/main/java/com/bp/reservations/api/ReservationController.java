@@ -1,16 +1,30 @@
 package com.bp.reservations.api;
 
+import com.bp.reservations.api.dto.AvailabilityResponse;
+import com.bp.reservations.api.dto.BulkReservationResult;
 import com.bp.reservations.api.dto.CreateReservationRequest;
+import com.bp.reservations.api.dto.ReservationPage;
 import com.bp.reservations.api.dto.ReservationResponse;
 import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.repository.ReservationFilter;
+import com.bp.reservations.service.ReservationBulkImporter;
+import com.bp.reservations.service.ReservationExporter;
 import com.bp.reservations.service.ReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,7 +36,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ReservationController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ReservationService reservationService;
+    private final ReservationExporter reservationExporter;
+    private final ReservationBulkImporter reservationBulkImporter;
 
     /**
      * Create reservation response.
@@ -31,7 +49,8 @@ public class ReservationController {
      * @return the reservation response
      */
 // CREATE
-    @Operation(summary = "Create a new reservation")
+    @Operation(summary = "Create a new reservation",
+            description = "Returns 409 if the resource is already booked for an overlapping time range")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ReservationResponse create(
@@ -40,6 +59,32 @@ public class ReservationController {
         return reservationService.createReservation(request);
     }
 
+    /**
+     * Create bulk.
+     *
+     * @param requests the requests
+     * @return one result per request
+     */
+    @Operation(summary = "Create many reservations from a JSON array",
+            description = "Returns one result per item: CREATED, CONFLICT or INVALID")
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BulkReservationResult> createBulk(@RequestBody List<CreateReservationRequest> requests) {
+        return reservationBulkImporter.importAll(requests);
+    }
+
+    /**
+     * Create bulk from newline-delimited JSON.
+     *
+     * @param body the request body
+     * @return one result per request
+     */
+    @Operation(summary = "Create many reservations from newline-delimited JSON",
+            description = "Reads one request per line as the body arrives; returns one result per item")
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public List<BulkReservationResult> createBulkNdjson(InputStream body) {
+        return reservationBulkImporter.importNdjson(body);
+    }
+
     /**
      * Gets by id.
      *
@@ -56,24 +101,82 @@ public class ReservationController {
     /**
      * Gets all.
      *
-     * @return the all
+     * @param status     the status
+     * @param resourceId the resource id
+     * @param userId     the user id
+     * @param from       keep reservations ending after this time
+     * @param to         keep reservations starting before this time
+     * @param after      the cursor, the nextCursor of the previous page
+     * @param limit      the page size
+     * @return the reservation page
      */
-    @Operation(summary = "Get all reservations")
+    @Operation(summary = "List reservations, one keyset page at a time",
+            description = "Pages are in id order; pass nextCursor as after to get the next one")
     @GetMapping
-    public List<ReservationResponse> getAll() {
-        return reservationService.getAll();
+    public ReservationPage getAll(
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) Long resourceId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return reservationService.getAll(new ReservationFilter(status, resourceId, userId, from, to), after, limit);
     }
 
     /**
      * Gets by user.
      *
      * @param userId the user id
-     * @return the by user
+     * @param after  the cursor, the nextCursor of the previous page
+     * @param limit  the page size
+     * @return the reservation page
      */
-    @Operation(summary = "Get reservations by User ID")
+    @Operation(summary = "List reservations of a user, one keyset page at a time")
     @GetMapping("/user/{userId}")
-    public List<ReservationResponse> getByUser(@PathVariable Long userId) {
-        return reservationService.getByUserId(userId);
+    public ReservationPage getByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return reservationService.getByUserId(userId, after, limit);
+    }
+
+    /**
+     * Export all.
+     *
+     * @param request the request
+     * @return the streaming response body
+     */
+    @Operation(summary = "Export all reservations as newline-delimited JSON",
+            description = "Streams one reservation per line in id order, read through a database cursor")
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAll(HttpServletRequest request) {
+        // Applies to this request only; the streaming body is written under it
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(reservationExporter.getTimeoutMs());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(reservationExporter::exportAll);
+    }
+
+    /**
+     * Gets availability.
+     *
+     * @param resourceId the resource id
+     * @param from       the start, inclusive
+     * @param to         the end, exclusive
+     * @return the availability
+     */
+    @Operation(summary = "Get free and booked time of a resource",
+            description = "Served from an in-memory index; returns 400 if from is not before to")
+    @GetMapping("/resources/{resourceId}/availability")
+    public AvailabilityResponse getAvailability(
+            @PathVariable Long resourceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return reservationService.getAvailability(resourceId, from, to);
     }
 
     /**
@@ -84,7 +187,8 @@ public class ReservationController {
      * @return the reservation response
      */
 // UPDATE
-    @Operation(summary = "Update reservation status by ID")
+    @Operation(summary = "Update reservation status by ID",
+            description = "Returns 409 if a released reservation is reactivated after its slot was booked again")
     @PatchMapping("/{id}/status")
     public ReservationResponse updateStatus(
             @PathVariable Long id,
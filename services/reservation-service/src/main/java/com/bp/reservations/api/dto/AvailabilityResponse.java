@@ -0,0 +1,32 @@
+package com.bp.reservations.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Availability of a resource within a requested time range.
+ *
+ * @param resourceId the resource id
+ * @param from       the start of the requested range, inclusive
+ * @param to         the end of the requested range, exclusive
+ * @param available  true if the whole range is free
+ * @param free       the free windows, clipped to the range
+ * @param booked     the booked slots overlapping the range, unclipped
+ */
+public record AvailabilityResponse(
+        Long resourceId,
+        LocalDateTime from,
+        LocalDateTime to,
+        boolean available,
+        List<Window> free,
+        List<Window> booked
+) {
+
+    /**
+     * A time window, {@code [from, to)}.
+     *
+     * @param from the start, inclusive
+     * @param to   the end, exclusive
+     */
+    public record Window(LocalDateTime from, LocalDateTime to) {}
+}
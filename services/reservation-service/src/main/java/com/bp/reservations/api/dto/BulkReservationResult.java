@@ -0,0 +1,47 @@
+package com.bp.reservations.api.dto;
+
+import java.util.Map;
+
+/**
+ * The outcome of one item of a bulk reservation request.
+ *
+ * @param index       the position of the item in the request, from 0
+ * @param outcome     the outcome
+ * @param reservation the created reservation, if CREATED
+ * @param errors      the validation errors by field, if INVALID, or a fixed reason, if FAILED
+ */
+public record BulkReservationResult(
+        int index,
+        Outcome outcome,
+        ReservationResponse reservation,
+        Map<String, String> errors
+) {
+
+    /**
+     * The enum Outcome.
+     */
+    public enum Outcome {
+        /**
+         * The reservation was created.
+         */
+        CREATED,
+        /**
+         * The resource is already booked within the requested time.
+         */
+        CONFLICT,
+        /**
+         * The item failed validation, or its line could not be parsed, and was not attempted.
+         */
+        INVALID,
+        /**
+         * The database rejected the item for a reason other than an overlap, or its
+         * chunk could not be written at all.
+         */
+        FAILED,
+        /**
+         * The item was not read, nor were any later items: it was past the item limit
+         * of a streamed request, the stream broke off, or an earlier chunk could not be written.
+         */
+        SKIPPED
+    }
+}
@@ -0,0 +1,14 @@
+package com.bp.reservations.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of a reservation listing, in id order.
+ *
+ * @param items      the reservations
+ * @param nextCursor the {@code after} value of the next page, or null on the last page
+ */
+public record ReservationPage(
+        List<ReservationResponse> items,
+        Long nextCursor
+) {}
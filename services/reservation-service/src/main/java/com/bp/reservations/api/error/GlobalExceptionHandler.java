@@ -1,6 +1,7 @@
 package com.bp.reservations.api.error;
 
 import com.bp.reservations.exception.EntityNotFoundException;
+import com.bp.reservations.exception.ReservationConflictException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,6 +95,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle reservation conflict exception response entity.
+     *
+     * @param ex the ex
+     * @return the response entity
+     */
+    @ExceptionHandler(ReservationConflictException.class)
+    public ResponseEntity<ErrorResponse> handleReservationConflictException(ReservationConflictException ex) {
+        log.info("Reservation conflict: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                "CONFLICT",
+                ex.getMessage(),
+                null,
+                Instant.now()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle runtime exception response entity.
      *
@@ -1,5 +1,6 @@
 package com.bp.reservations.config;
 
+import com.bp.common.kafka.KafkaScalingProperties;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -18,12 +19,13 @@ public class KafkaTopicConfig {
     /**
      * Reservation created topic new topic.
      *
+     * @param kafkaScaling the kafka scaling properties
      * @return the new topic
      */
     @Bean
-    public NewTopic reservationCreatedTopic() {
+    public NewTopic reservationCreatedTopic(KafkaScalingProperties kafkaScaling) {
         return TopicBuilder.name(reservationCreatedTopic)
-                .partitions(1)
+                .partitions(kafkaScaling.partitionsFor("reservation-created"))
                 .replicas(1)
                 .build();
     }
@@ -0,0 +1,32 @@
+package com.bp.reservations.config;
+
+import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.outbox.OutboxConfiguration;
+import com.bp.common.outbox.OutboxEventTypeRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The type Outbox config.
+ */
+@Configuration
+@Import(OutboxConfiguration.class)
+public class OutboxConfig {
+
+    @Value("${app.kafka.topics.reservation-created}")
+    private String reservationCreatedTopic;
+
+    /**
+     * Event types this service publishes through its outbox.
+     *
+     * @return the outbox event type registry
+     */
+    @Bean
+    public OutboxEventTypeRegistry outboxEventTypeRegistry() {
+        return new OutboxEventTypeRegistry()
+                .register(ReservationCreatedEvent.class, reservationCreatedTopic,
+                        event -> String.valueOf(event.reservationId()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.bp.reservations.entity;
 
+import com.bp.common.outbox.OutboxRecord;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,10 +17,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_status", columnList = "status"))
-public class OutboxEvent {
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_event_status_id", columnList = "status, id"),
+        @Index(name = "idx_outbox_event_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_event_status_created_at", columnList = "status, createdAt")
+})
+public class OutboxEvent implements OutboxRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -37,7 +43,19 @@ public class OutboxEvent {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String payload; // JSON representation of the event
 
+    private String messageKey; // Kafka record key; lets the publisher send the payload without parsing it
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private OutboxEventStatus status; // NEW, SENT, FAILED
+    private OutboxEventStatus status; // NEW, SENT, FAILED, DEAD
+
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int attempts = 0; // failed publish attempts so far
+
+    private LocalDateTime nextAttemptAt; // when a FAILED row becomes due for retry
+
+    private String claimedBy; // instance that currently owns the row
+
+    private LocalDateTime claimedUntil; // lease expiry; other instances skip the row until then
 }
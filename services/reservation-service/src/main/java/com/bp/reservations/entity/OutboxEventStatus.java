@@ -13,7 +13,11 @@ public enum OutboxEventStatus {
      */
     SENT,
     /**
-     * Failed outbox event status.
+     * Failed outbox event status; retried once its backoff elapses.
      */
-    FAILED
+    FAILED,
+    /**
+     * Dead outbox event status; retries exhausted, needs manual attention.
+     */
+    DEAD
 }
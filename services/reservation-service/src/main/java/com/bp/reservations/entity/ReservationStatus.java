@@ -19,5 +19,15 @@ public enum ReservationStatus {
     /**
      * Cancelled reservation status.
      */
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * Whether a reservation in this status keeps its time slot on the resource.
+     * Must match the {@code WHERE} clause of the {@code reservations_no_overlap} constraint.
+     *
+     * @return true if the slot stays booked
+     */
+    public boolean holdsSlot() {
+        return this != CANCELLED && this != PAYMENT_FAILED;
+    }
 }
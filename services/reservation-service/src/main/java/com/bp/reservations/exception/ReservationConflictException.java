@@ -0,0 +1,27 @@
+package com.bp.reservations.exception;
+
+/**
+ * The type Reservation conflict exception.
+ * <p>
+ * Thrown when a reservation overlaps an active reservation of the same resource.
+ */
+public class ReservationConflictException extends RuntimeException {
+    /**
+     * Instantiates a new Reservation conflict exception.
+     *
+     * @param message the message
+     */
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Instantiates a new Reservation conflict exception.
+     *
+     * @param message the message
+     * @param cause   the cause
+     */
+    public ReservationConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
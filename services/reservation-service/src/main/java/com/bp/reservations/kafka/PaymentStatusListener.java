@@ -1,13 +1,25 @@
 package com.bp.reservations.kafka;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.PaymentConfirmedEvent;
 import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.reservations.service.ReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.KafkaNull;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The type Payment status listener.
  */
@@ -17,37 +29,61 @@ import org.springframework.stereotype.Component;
 public class PaymentStatusListener {
 
     private final ReservationService reservationService;
+    private final KeyOrderedBatchProcessor keyOrderedProcessor;
+    private final IdempotentConsumer idempotentConsumer;
 
     /**
      * On payment confirmed.
      *
-     * @param event the event
+     * @param event   the event
+     * @param eventId the envelope event id, absent on records produced before it existed
      */
     @KafkaListener(
+            id = "reservation-payment-confirmed",
             topics = "${app.kafka.topics.payment-confirmed}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('payment-confirmed')}",
             groupId = "reservation-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.batch-listener.enabled:true}}"
     )
-    public void onPaymentConfirmed(PaymentConfirmedEvent event) {
-        log.info(
-                "PaymentConfirmedEvent received for reservationId: {}, paymentId: {}",
-                event.reservationId(),
-                event.paymentId()
-        );
-        reservationService.updateReservationStatus(event.reservationId(), event.status());
+    public void onPaymentConfirmed(
+            PaymentConfirmedEvent event,
+            @Header(name = EventEnvelope.EVENT_ID, required = false) byte[] eventId
+    ) {
+        idempotentConsumer.handle(IdempotentConsumer.eventId(eventId), event, this::applyPaymentConfirmed);
     }
 
     /**
      * On payment failed.
      *
-     * @param event the event
+     * @param event   the event
+     * @param eventId the envelope event id, absent on records produced before it existed
      */
     @KafkaListener(
+            id = "reservation-payment-failed",
             topics = "${app.kafka.topics.payment-failed}",
+            concurrency = "#{@kafkaScaling.concurrencyFor('payment-failed')}",
             groupId = "reservation-service-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.batch-listener.enabled:true}}"
     )
-    public void onPaymentFailed(PaymentFailedEvent event) {
+    public void onPaymentFailed(
+            PaymentFailedEvent event,
+            @Header(name = EventEnvelope.EVENT_ID, required = false) byte[] eventId
+    ) {
+        idempotentConsumer.handle(IdempotentConsumer.eventId(eventId), event, this::applyPaymentFailed);
+    }
+
+    private void applyPaymentConfirmed(PaymentConfirmedEvent event) {
+        log.info(
+                "PaymentConfirmedEvent received for reservationId: {}, paymentId: {}",
+                event.reservationId(),
+                event.paymentId()
+        );
+        reservationService.updateReservationStatus(event.reservationId(), event.status());
+    }
+
+    private void applyPaymentFailed(PaymentFailedEvent event) {
         log.info(
                 "PaymentFailedEvent received for reservationId: {}, paymentId: {}, reason: {}",
                 event.reservationId(),
@@ -57,4 +93,77 @@ public class PaymentStatusListener {
         // Assuming common.events.PaymentStatus will be PAYMENT_FAILED
         reservationService.updateReservationStatus(event.reservationId(), com.bp.common.events.PaymentStatus.FAILED);
     }
-}
\ No newline at end of file
+
+    /**
+     * On payment results batch.
+     * <p>
+     * Consumes both payment topics together so a poll can be collapsed to the last
+     * outcome per reservation and applied with set-based UPDATEs. If that fails, or in
+     * parallel-consumer mode, the records are processed one by one on the key-ordered
+     * worker pool; the lowest failing record is reported by index, records before it
+     * are committed and only that record moves to the retry tiers. Events already
+     * processed, by id, are dropped on either path.
+     *
+     * @param events  the payment confirmed and payment failed events of one poll
+     * @param keys    the record keys, aligned with {@code events}
+     * @param headers the per-record headers, aligned with {@code events}
+     */
+    @KafkaListener(
+            id = "reservation-payment-results",
+            topics = {"${app.kafka.topics.payment-confirmed}", "${app.kafka.topics.payment-failed}"},
+            concurrency = "#{@kafkaScaling.concurrencyFor('payment-confirmed', 'payment-failed')}",
+            groupId = "reservation-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${app.kafka.batch-listener.enabled:true}"
+    )
+    public void onPaymentResults(
+            List<Object> events,
+            @Header(KafkaHeaders.RECEIVED_KEY) List<String> keys,
+            @Header(KafkaHeaders.BATCH_CONVERTED_HEADERS) List<Map<String, Object>> headers
+    ) {
+        log.info("Payment results received: {} events", events.size());
+        List<String> eventIds = IdempotentConsumer.eventIds(headers);
+        if (keyOrderedProcessor.isParallelMode()) {
+            processOneByOne(events, keys, eventIds);
+            return;
+        }
+        try {
+            idempotentConsumer.handleAll(eventIds, events, this::applyFinalStatuses);
+        } catch (RuntimeException batchFailure) {
+            log.warn("Payment results batch of {} failed, falling back to per-record: {}", events.size(), batchFailure.getMessage());
+            processOneByOne(events, keys, eventIds);
+        }
+    }
+
+    private void applyFinalStatuses(List<Object> events) {
+        Map<Long, PaymentStatus> finalStatuses = new LinkedHashMap<>();
+        for (Object event : events) {
+            if (event instanceof PaymentConfirmedEvent confirmed) {
+                finalStatuses.put(confirmed.reservationId(), confirmed.status());
+            } else if (event instanceof PaymentFailedEvent failed) {
+                finalStatuses.put(failed.reservationId(), PaymentStatus.FAILED);
+            } else {
+                throw new IllegalArgumentException("Unsupported payment result: " + event);
+            }
+        }
+        reservationService.applyPaymentStatuses(finalStatuses);
+    }
+
+    private void processOneByOne(List<Object> events, List<String> keys, List<String> eventIds) {
+        keyOrderedProcessor.processIndexed(events, keys, (event, i) -> idempotentConsumer.handle(
+                i < eventIds.size() ? eventIds.get(i) : null, event, this::onPaymentResult));
+    }
+
+    private void onPaymentResult(Object event) {
+        if (event instanceof PaymentConfirmedEvent confirmed) {
+            applyPaymentConfirmed(confirmed);
+        } else if (event instanceof PaymentFailedEvent failed) {
+            applyPaymentFailed(failed);
+        } else if (event instanceof KafkaNull) {
+            // ErrorHandlingDeserializer hands batch listeners a null value for a record it could not read
+            throw new MessageConversionException("Payment result could not be deserialized");
+        } else {
+            throw new IllegalArgumentException("Unsupported payment result: " + event);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.bp.reservations.repository;
+
+import com.bp.reservations.entity.Reservation;
+
+import java.time.LocalDateTime;
+
+/**
+ * The time slot a reservation holds on its resource, {@code [from, to)}.
+ *
+ * @param reservationId the reservation id
+ * @param resourceId    the resource id
+ * @param from          the start, inclusive
+ * @param to            the end, exclusive
+ */
+public record BookedSlot(Long reservationId, Long resourceId, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * Slot of a reservation.
+     *
+     * @param reservation the reservation
+     * @return the booked slot
+     */
+    public static BookedSlot of(Reservation reservation) {
+        return new BookedSlot(
+                reservation.getId(),
+                reservation.getResourceId(),
+                reservation.getStartTime(),
+                reservation.getEndTime()
+        );
+    }
+}
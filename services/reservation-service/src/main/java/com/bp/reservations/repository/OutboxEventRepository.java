@@ -3,7 +3,12 @@ package com.bp.reservations.repository;
 import com.bp.reservations.entity.OutboxEvent;
 import com.bp.reservations.entity.OutboxEventStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -11,10 +16,169 @@ import java.util.List;
  */
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
     /**
-     * Find by status list.
+     * Count by status long.
      *
      * @param status the status
-     * @return the list
+     * @return the count
      */
-    List<OutboxEvent> findByStatus(OutboxEventStatus status);
+    long countByStatus(OutboxEventStatus status);
+
+    /**
+     * Locks the next batch of unclaimed NEW events, oldest first.
+     * Rows already locked by another instance are skipped rather than waited on,
+     * so several publishers can drain the outbox concurrently without duplicates.
+     *
+     * @param now   the current time, used to ignore rows with a live lease
+     * @param limit the maximum number of rows to lock
+     * @return the locked events
+     */
+    @Query(value = """
+            SELECT * FROM outbox_event
+            WHERE status = 'NEW'
+              AND (claimed_until IS NULL OR claimed_until < :now)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Locks the given events if they are still NEW and unclaimed.
+     * Used by the after-commit fast path; rows the poller already holds are skipped.
+     *
+     * @param ids the outbox event ids
+     * @param now the current time, used to ignore rows with a live lease
+     * @return the locked events
+     */
+    @Query(value = """
+            SELECT * FROM outbox_event
+            WHERE id IN (:ids)
+              AND status = 'NEW'
+              AND (claimed_until IS NULL OR claimed_until < :now)
+            ORDER BY id
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Locks FAILED events whose backoff has elapsed, earliest due first.
+     * An index range scan of (status, next_attempt_at) that stops after {@code limit}
+     * rows; every FAILED row has a due time, see {@link #scheduleUndatedRetries}.
+     *
+     * @param now   the current time
+     * @param limit the maximum number of rows to lock
+     * @return the locked events
+     */
+    @Query(value = """
+            SELECT * FROM outbox_event
+            WHERE status = 'FAILED'
+              AND next_attempt_at <= :now
+              AND (claimed_until IS NULL OR claimed_until < :now)
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Makes FAILED events that have no due time, failed before retries existed,
+     * due now, so the retry sweep can find them through the index.
+     *
+     * @param now the current time
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_event
+            SET next_attempt_at = :now
+            WHERE status = 'FAILED' AND next_attempt_at IS NULL
+            """, nativeQuery = true)
+    int scheduleUndatedRetries(@Param("now") LocalDateTime now);
+
+    /**
+     * Stamps a lease on already locked rows in a single statement.
+     *
+     * @param ids   the outbox event ids
+     * @param owner the claiming instance
+     * @param until the lease expiry
+     * @return the number of rows updated
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update OutboxEvent e set e.claimedBy = :owner, e.claimedUntil = :until where e.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    /**
+     * Records the publish outcome for rows still owned by the given instance.
+     * Rows whose lease expired and were re-claimed elsewhere are left alone.
+     *
+     * @param ids    the outbox event ids
+     * @param owner  the instance that claimed the rows
+     * @param status the resulting status
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query("""
+                update OutboxEvent e
+                set e.status = :status, e.claimedUntil = null
+                where e.id in :ids and e.claimedBy = :owner
+            """)
+    int complete(@Param("ids") Collection<Long> ids,
+                 @Param("owner") String owner,
+                 @Param("status") OutboxEventStatus status);
+
+    /**
+     * Records a failed attempt for rows still owned by the given instance.
+     * The next attempt is scheduled with capped exponential backoff and jitter,
+     * computed per row from its own attempt count; rows reaching the attempt
+     * limit are parked as DEAD.
+     *
+     * @param ids           the outbox event ids
+     * @param owner         the instance that claimed the rows
+     * @param now           the current time
+     * @param baseDelayMs   the delay before the first retry
+     * @param maxDelayMs    the upper bound for any single delay
+     * @param maxAttempts   the number of attempts after which a row is DEAD
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE outbox_event
+            SET attempts = attempts + 1,
+                status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'DEAD' ELSE 'FAILED' END,
+                next_attempt_at = CASE WHEN attempts + 1 >= :maxAttempts THEN NULL
+                    ELSE CAST(:now AS timestamp) + make_interval(secs =>
+                        LEAST(:baseDelayMs * power(2, attempts), :maxDelayMs) * (0.5 + random() * 0.5) / 1000.0)
+                    END,
+                claimed_until = NULL
+            WHERE id IN (:ids) AND claimed_by = :owner
+            """, nativeQuery = true)
+    int fail(@Param("ids") Collection<Long> ids,
+             @Param("owner") String owner,
+             @Param("now") LocalDateTime now,
+             @Param("baseDelayMs") long baseDelayMs,
+             @Param("maxDelayMs") long maxDelayMs,
+             @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Deletes up to {@code limit} SENT events created before the cutoff, oldest first.
+     * Served by the (status, created_at) index, so each chunk costs the same
+     * regardless of how much history the table holds.
+     *
+     * @param cutoff the creation time before which SENT rows are expired
+     * @param limit  the maximum number of rows to delete
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM outbox_event
+            WHERE id IN (
+                SELECT id FROM outbox_event
+                WHERE status = 'SENT'
+                  AND created_at < :cutoff
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int purgeSentBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
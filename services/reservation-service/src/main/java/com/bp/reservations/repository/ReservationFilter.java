@@ -0,0 +1,82 @@
+package com.bp.reservations.repository;
+
+import com.bp.reservations.entity.Reservation;
+import com.bp.reservations.entity.ReservationStatus;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional filters of a reservation listing; a null field does not filter.
+ * The time window has no index of its own, see {@link ReservationListingIndexes}.
+ *
+ * @param status     the status
+ * @param resourceId the resource id
+ * @param userId     the user id
+ * @param from       keep reservations ending after this time
+ * @param to         keep reservations starting before this time
+ */
+public record ReservationFilter(
+        ReservationStatus status,
+        Long resourceId,
+        Long userId,
+        LocalDateTime from,
+        LocalDateTime to
+) {
+
+    /**
+     * No filter.
+     *
+     * @return the reservation filter
+     */
+    public static ReservationFilter none() {
+        return new ReservationFilter(null, null, null, null, null);
+    }
+
+    /**
+     * Reservations of one user.
+     *
+     * @param userId the user id
+     * @return the reservation filter
+     */
+    public static ReservationFilter byUser(Long userId) {
+        return new ReservationFilter(null, null, userId, null, null);
+    }
+
+    /**
+     * Matches the filtered reservations with an id greater than {@code after}.
+     * <p>
+     * Only the set filters become predicates, so each combination gets its own
+     * statement and plan rather than one generic {@code (:x is null or ...)} query.
+     *
+     * @param after the last id of the previous page, or null for the first page
+     * @return the specification
+     */
+    public Specification<Reservation> after(Long after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (after != null) {
+                predicates.add(cb.greaterThan(root.get("id"), after));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (resourceId != null) {
+                predicates.add(cb.equal(root.get("resourceId"), resourceId));
+            }
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("userId"), userId));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThan(root.get("endTime"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThan(root.get("startTime"), to));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
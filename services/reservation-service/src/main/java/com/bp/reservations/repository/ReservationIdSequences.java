@@ -0,0 +1,58 @@
+package com.bp.reservations.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the id sequences of {@code reservations} and {@code outbox_event} past the
+ * ids already issued.
+ * <p>
+ * Both tables used identity columns before they switched to pooled sequences, so
+ * Hibernate could batch their inserts. {@code ddl-auto: update} creates the missing
+ * sequences starting at 1, which would hand out ids that were issued before. The
+ * highest id in the table is not enough: retention purges SENT outbox rows, and an
+ * outbox row id reused would repeat the event id derived from it, which consumers
+ * drop as a duplicate. So each sequence is moved to the greater of {@code max(id)}
+ * and the last value of the column's old identity sequence, if it still has one.
+ * <p>
+ * Hibernate's pooled optimizer uses the {@code ALLOCATION_SIZE} ids up to each value
+ * the sequence returns, so after {@code setval} the next block starts just past it.
+ * A sequence already past that value is left alone, which keeps the statement
+ * idempotent and safe with several instances starting at once.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ReservationIdSequences implements InitializingBean {
+
+    private static final Map<String, String> SEQUENCE_BY_TABLE = Map.of(
+            "reservations", "reservations_seq",
+            "outbox_event", "outbox_event_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCE_BY_TABLE.forEach((table, sequence) -> {
+            Long moved = jdbcTemplate.query("""
+                    SELECT setval('%1$s', m.max_id)
+                    FROM (SELECT GREATEST(
+                                  (SELECT max(id) FROM %2$s),
+                                  pg_sequence_last_value(pg_get_serial_sequence('%2$s', 'id')::regclass)
+                          ) AS max_id) m
+                    WHERE m.max_id >= (SELECT last_value FROM %1$s)
+                    """.formatted(sequence, table), rs -> rs.next() ? rs.getLong(1) : null);
+            if (moved != null) {
+                log.info("Moved sequence {} past the ids issued for {}: {}", sequence, table, moved);
+            }
+        });
+    }
+}
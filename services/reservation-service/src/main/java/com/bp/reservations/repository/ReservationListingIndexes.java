@@ -0,0 +1,102 @@
+package com.bp.reservations.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Covering indexes for the keyset-paginated reservation listing.
+ * <p>
+ * Each filter that narrows a listing by equality gets a {@code (filter, id)} index,
+ * so a page is a range scan that starts right after the cursor and stops after
+ * {@code limit} rows, whatever the table size. The remaining columns of
+ * {@code ReservationResponse} are {@code INCLUDE}d, letting Postgres answer from
+ * the index alone. JPA cannot declare {@code INCLUDE} columns, so the indexes are
+ * created here once Hibernate has created the table. The from/to time window has no
+ * index of its own: it is checked on the rows of the keyset scan picked by the
+ * other filters, so it should be combined with a resource or user.
+ * <p>
+ * The indexes are built {@code CONCURRENTLY}, outside any transaction, so a build on
+ * a populated table does not block writes. The build runs on its own thread once the
+ * application is ready, so startup does not wait for it; listings work without the
+ * indexes, only slower. One instance builds at a time: the step holds a Postgres
+ * advisory lock, and an instance that cannot take it leaves the work to the holder.
+ * A concurrent build that fails leaves an invalid index behind, which
+ * {@code IF NOT EXISTS} would keep forever; such an index is dropped and built again,
+ * unless {@code pg_stat_progress_create_index} shows it is still being built.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationListingIndexes {
+
+    private static final String LOCK_KEY = "hashtext('reservations_listing_indexes')";
+
+    private static final Map<String, String> COLUMNS_BY_INDEX = Map.of(
+            "reservations_user_id_keyset", "(user_id, id) INCLUDE (resource_id, start_time, end_time, status)",
+            "reservations_resource_id_keyset", "(resource_id, id) INCLUDE (user_id, start_time, end_time, status)",
+            "reservations_status_keyset", "(status, id) INCLUDE (user_id, resource_id, start_time, end_time)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Start the index build in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        Thread builder = new Thread(this::build, "reservation-listing-indexes");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Create the missing indexes and rebuild invalid ones no build is working on.
+     */
+    public void build() {
+        try {
+            // A session-level lock, so every statement must run on this one connection
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")", Boolean.class))) {
+                    log.info("Listing indexes are being built by another instance");
+                    return null;
+                }
+                try {
+                    createIndexes(session);
+                } finally {
+                    session.queryForObject("SELECT pg_advisory_unlock(" + LOCK_KEY + ")", Boolean.class);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Listing indexes could not be built: {}", e.getMessage(), e);
+        }
+    }
+
+    private void createIndexes(JdbcTemplate session) {
+        List<String> abandoned = session.queryForList("""
+                SELECT c.relname
+                FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indrelid = 'reservations'::regclass AND NOT i.indisvalid
+                  AND NOT EXISTS (SELECT 1 FROM pg_stat_progress_create_index p WHERE p.index_relid = i.indexrelid)
+                """, String.class);
+        COLUMNS_BY_INDEX.forEach((index, columns) -> {
+            if (abandoned.contains(index)) {
+                log.warn("Rebuilding invalid index {} left by an interrupted build", index);
+                session.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            }
+            session.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON reservations %s".formatted(index, columns));
+        });
+        log.info("Listing indexes are in place");
+    }
+}
@@ -0,0 +1,64 @@
+package com.bp.reservations.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes Postgres reject overlapping active reservations of the same resource.
+ * <p>
+ * Hibernate owns the {@code reservations} table ({@code ddl-auto: update}) but cannot
+ * express range types or exclusion constraints, so they are added here once the
+ * table exists: a generated {@code period tsrange} column, half-open so back-to-back
+ * bookings do not collide, and a GiST exclusion constraint on
+ * {@code (resource_id =, period &&)} for rows that still hold their slot. Two
+ * concurrent inserts for the same slot are serialized by the constraint's index,
+ * not by a lock the application takes; the loser fails with SQLSTATE
+ * {@value #EXCLUSION_VIOLATION}. Every statement is idempotent.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ReservationOverlapConstraint implements InitializingBean {
+
+    /**
+     * The constant CONSTRAINT_NAME.
+     */
+    public static final String CONSTRAINT_NAME = "reservations_no_overlap";
+    /**
+     * The constant EXCLUSION_VIOLATION SQLSTATE.
+     */
+    public static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        // btree_gist provides the GiST operator class for the bigint equality on resource_id
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+        jdbcTemplate.execute("""
+                ALTER TABLE reservations ADD COLUMN IF NOT EXISTS period tsrange
+                    GENERATED ALWAYS AS (tsrange(start_time, end_time, '[)')) STORED
+                """);
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ?", Integer.class, CONSTRAINT_NAME);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("""
+                    ALTER TABLE reservations ADD CONSTRAINT %s
+                        EXCLUDE USING gist (resource_id WITH =, period WITH &&)
+                        WHERE (status NOT IN ('CANCELLED', 'PAYMENT_FAILED'))
+                    """.formatted(CONSTRAINT_NAME));
+            log.info("Added exclusion constraint {} on reservations", CONSTRAINT_NAME);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot add " + CONSTRAINT_NAME
+                    + "; cancel the overlapping active reservations it reports and restart", e);
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.bp.reservations.repository;
 
 import com.bp.reservations.entity.Reservation;
+import com.bp.reservations.entity.ReservationStatus;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The interface Reservation repository.
  */
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, JpaSpecificationExecutor<Reservation> {
     /**
      * Cancel all active.
      */
@@ -23,10 +30,76 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     void cancelAllActive();
 
     /**
-     * Find by user id list.
+     * Find one keyset page: up to {@code limit} filtered reservations with an id
+     * greater than {@code after}, in id order. No count query is run.
      *
-     * @param userId the user id
-     * @return the list
+     * @param filter the filter
+     * @param after  the last id of the previous page, or null for the first page
+     * @param limit  the maximum number of rows
+     * @return the reservations
      */
-    List<Reservation> findByUserId(Long userId);
+    default List<Reservation> findPage(ReservationFilter filter, Long after, int limit) {
+        return findBy(filter.after(after), query -> query.sortBy(Sort.by("id")).limit(limit).all());
+    }
+
+    /**
+     * Find the time slots of the reservations in the given statuses that end after
+     * the given time.
+     *
+     * @param statuses the statuses
+     * @param after    the time the slots must end after
+     * @return the booked slots
+     */
+    @Query("""
+                select new com.bp.reservations.repository.BookedSlot(r.id, r.resourceId, r.startTime, r.endTime)
+                from Reservation r
+                where r.status in :statuses and r.endTime > :after
+            """)
+    List<BookedSlot> findBookedSlots(
+            @Param("statuses") Collection<ReservationStatus> statuses,
+            @Param("after") LocalDateTime after
+    );
+
+    /**
+     * Find the time slots of those of the given reservations that are in one of the
+     * given statuses.
+     *
+     * @param ids      the reservation ids
+     * @param statuses the statuses
+     * @return the slots
+     */
+    @Query("""
+                select new com.bp.reservations.repository.BookedSlot(r.id, r.resourceId, r.startTime, r.endTime)
+                from Reservation r
+                where r.id in :ids and r.status in :statuses
+            """)
+    List<BookedSlot> findSlots(
+            @Param("ids") Collection<Long> ids,
+            @Param("statuses") Collection<ReservationStatus> statuses
+    );
+
+    /**
+     * Find which of the given reservation ids exist.
+     *
+     * @param ids the reservation ids
+     * @return the existing ids
+     */
+    @Query("select r.id from Reservation r where r.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Set the status of the given reservations in one statement, skipping rows
+     * that already have it.
+     *
+     * @param ids    the reservation ids
+     * @param status the new status
+     * @return the number of rows changed
+     */
+    @Modifying
+    @Query("""
+                update Reservation r
+                set r.status = :status
+                where r.id in :ids and r.status <> :status
+            """)
+    int updateStatusWhereDifferent(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
 }
@@ -0,0 +1,78 @@
+package com.bp.reservations.service;
+
+import com.bp.reservations.entity.Reservation;
+import com.bp.reservations.repository.BookedSlot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published by {@link ReservationService} when reservations take or release their
+ * time slot; applied to the {@link ReservationAvailabilityIndex} after commit.
+ *
+ * @param booked      slots taken
+ * @param released    reservation ids whose slot was released
+ * @param clearsAll   true if every reservation released its slot
+ */
+public record AvailabilityChanged(List<BookedSlot> booked, Set<Long> released, boolean clearsAll) {
+
+    /**
+     * A reservation took its slot.
+     *
+     * @param reservation the reservation
+     * @return the event
+     */
+    public static AvailabilityChanged booked(Reservation reservation) {
+        return new AvailabilityChanged(List.of(BookedSlot.of(reservation)), Set.of(), false);
+    }
+
+    /**
+     * Reservations took their slots.
+     *
+     * @param reservations the reservations
+     * @return the event
+     */
+    public static AvailabilityChanged booked(Collection<Reservation> reservations) {
+        return new AvailabilityChanged(reservations.stream().map(BookedSlot::of).toList(), Set.of(), false);
+    }
+
+    /**
+     * Reservations took the given slots.
+     *
+     * @param slots the slots
+     * @return the event
+     */
+    public static AvailabilityChanged bookedSlots(List<BookedSlot> slots) {
+        return new AvailabilityChanged(List.copyOf(slots), Set.of(), false);
+    }
+
+    /**
+     * Reservations released their slots.
+     *
+     * @param reservationIds the reservation ids
+     * @return the event
+     */
+    public static AvailabilityChanged released(Collection<Long> reservationIds) {
+        return new AvailabilityChanged(List.of(), Set.copyOf(reservationIds), false);
+    }
+
+    /**
+     * Every reservation released its slot.
+     *
+     * @return the event
+     */
+    public static AvailabilityChanged releasedAll() {
+        return new AvailabilityChanged(List.of(), Set.of(), true);
+    }
+
+    /**
+     * A reservation's status changed; it takes or releases its slot accordingly.
+     *
+     * @param reservation the reservation, with its new status
+     * @return the event
+     */
+    public static AvailabilityChanged of(Reservation reservation) {
+        return reservation.getStatus().holdsSlot() ? booked(reservation) : released(List.of(reservation.getId()));
+    }
+}
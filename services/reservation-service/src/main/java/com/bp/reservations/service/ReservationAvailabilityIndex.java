@@ -0,0 +1,301 @@
+package com.bp.reservations.service;
+
+import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.repository.BookedSlot;
+import com.bp.reservations.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the slots held by active reservations, per resource, so
+ * availability queries never touch Postgres.
+ * <p>
+ * Each resource maps to an immutable array of its slots sorted by start; a query
+ * binary-searches it without locking. Writers replace the array under one lock.
+ * The index is loaded at startup, updated from {@link AvailabilityChanged} events
+ * after their transaction commits, and rebuilt from the database on a fixed delay
+ * to pick up changes made by other instances or outside the service. Changes that
+ * commit while a rebuild is loading are replayed onto the new snapshot.
+ * <p>
+ * Only slots that have not ended are held, so the index grows with the bookable
+ * horizon, not with history: a rebuild loads no ended slot, and an ended slot in a
+ * change is ignored. Ranges in the past therefore show as free.
+ */
+@Slf4j
+@Component
+public class ReservationAvailabilityIndex implements InitializingBean {
+
+    private static final Comparator<BookedSlot> BY_START = Comparator.comparing(BookedSlot::from)
+            .thenComparing(BookedSlot::reservationId);
+
+    private final ReservationRepository reservationRepository;
+    private final Counter drift;
+    private final Clock clock;
+    private final Object writeLock = new Object();
+
+    private volatile Map<Long, ResourceSlots> slotsByResource = new ConcurrentHashMap<>();
+    private Map<Long, Long> resourceByReservation = new HashMap<>();
+    private List<AvailabilityChanged> pendingDuringRebuild;
+
+    /**
+     * Instantiates a new Reservation availability index.
+     *
+     * @param reservationRepository the reservation repository
+     * @param meterRegistry         the meter registry
+     */
+    @Autowired
+    public ReservationAvailabilityIndex(ReservationRepository reservationRepository, MeterRegistry meterRegistry) {
+        this(reservationRepository, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Instantiates a new Reservation availability index.
+     *
+     * @param reservationRepository the reservation repository
+     * @param meterRegistry         the meter registry
+     * @param clock                 the clock that decides which slots have ended
+     */
+    public ReservationAvailabilityIndex(ReservationRepository reservationRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.reservationRepository = reservationRepository;
+        this.clock = clock;
+        this.drift = Counter.builder("reservations.availability.drift")
+                .description("Index entries corrected by a rebuild from the database")
+                .register(meterRegistry);
+        Gauge.builder("reservations.availability.indexed", this, index -> index.size())
+                .description("Active reservations held in the availability index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    /**
+     * Booked slots of a resource that overlap {@code [from, to)}, sorted by start.
+     *
+     * @param resourceId the resource id
+     * @param from       the start, inclusive
+     * @param to         the end, exclusive
+     * @return the overlapping slots
+     */
+    public List<BookedSlot> bookedBetween(Long resourceId, LocalDateTime from, LocalDateTime to) {
+        ResourceSlots resource = slotsByResource.get(resourceId);
+        if (resource == null) {
+            return List.of();
+        }
+        BookedSlot[] slots = resource.byStart();
+        // No slot starting before from minus the longest slot can still reach into the range
+        int i = firstStartingAtOrAfter(slots, from.minus(resource.longest()));
+        List<BookedSlot> overlapping = new ArrayList<>();
+        for (; i < slots.length && slots[i].from().isBefore(to); i++) {
+            if (slots[i].to().isAfter(from)) {
+                overlapping.add(slots[i]);
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Applies a committed change.
+     *
+     * @param event the event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAvailabilityChanged(AvailabilityChanged event) {
+        synchronized (writeLock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event, slotsByResource, resourceByReservation, LocalDateTime.now(clock));
+        }
+    }
+
+    /**
+     * Reloads the index from the database and swaps it in.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.availability.rebuild-fixed-delay-ms:60000}",
+            initialDelayString = "${app.availability.rebuild-fixed-delay-ms:60000}"
+    )
+    public void rebuild() {
+        synchronized (writeLock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        List<BookedSlot> loaded;
+        try {
+            loaded = reservationRepository.findBookedSlots(activeStatuses(), LocalDateTime.now(clock));
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        Map<Long, List<BookedSlot>> grouped = new HashMap<>();
+        Map<Long, Long> rebuiltOwners = new HashMap<>();
+        for (BookedSlot slot : loaded) {
+            grouped.computeIfAbsent(slot.resourceId(), id -> new ArrayList<>()).add(slot);
+            rebuiltOwners.put(slot.reservationId(), slot.resourceId());
+        }
+        Map<Long, ResourceSlots> rebuilt = new ConcurrentHashMap<>();
+        grouped.forEach((resourceId, slots) -> rebuilt.put(resourceId, ResourceSlots.of(slots)));
+
+        synchronized (writeLock) {
+            for (AvailabilityChanged event : pendingDuringRebuild) {
+                apply(event, rebuilt, rebuiltOwners, LocalDateTime.now(clock));
+            }
+            pendingDuringRebuild = null;
+
+            long corrected = countDifferences(resourceByReservation, rebuiltOwners);
+            if (corrected > 0 && !resourceByReservation.isEmpty()) {
+                log.warn("Availability index corrected {} entries from the database", corrected);
+                drift.increment(corrected);
+            }
+            slotsByResource = rebuilt;
+            resourceByReservation = rebuiltOwners;
+        }
+        log.debug("Availability index rebuilt: reservations={}, resources={}", loaded.size(), rebuilt.size());
+    }
+
+    /**
+     * Number of active reservations in the index.
+     *
+     * @return the size
+     */
+    public int size() {
+        synchronized (writeLock) {
+            return resourceByReservation.size();
+        }
+    }
+
+    private static void apply(
+            AvailabilityChanged event,
+            Map<Long, ResourceSlots> slots,
+            Map<Long, Long> owners,
+            LocalDateTime now
+    ) {
+        if (event.clearsAll()) {
+            slots.clear();
+            owners.clear();
+        }
+        for (Long reservationId : event.released()) {
+            removeSlot(slots, owners.remove(reservationId), reservationId);
+        }
+        for (BookedSlot slot : event.booked()) {
+            // A replayed or re-activated reservation replaces its earlier slot
+            removeSlot(slots, owners.remove(slot.reservationId()), slot.reservationId());
+            if (!slot.to().isAfter(now)) {
+                continue;
+            }
+            owners.put(slot.reservationId(), slot.resourceId());
+            slots.merge(slot.resourceId(), ResourceSlots.of(List.of(slot)), (current, added) -> current.with(slot));
+        }
+    }
+
+    private static void removeSlot(Map<Long, ResourceSlots> slots, Long resourceId, Long reservationId) {
+        ResourceSlots current = resourceId == null ? null : slots.get(resourceId);
+        if (current == null) {
+            return;
+        }
+        ResourceSlots remaining = current.without(reservationId);
+        if (remaining == null) {
+            slots.remove(resourceId);
+        } else {
+            slots.put(resourceId, remaining);
+        }
+    }
+
+    private static long countDifferences(Map<Long, Long> before, Map<Long, Long> after) {
+        long missingOrMoved = after.entrySet().stream()
+                .filter(entry -> !Objects.equals(before.get(entry.getKey()), entry.getValue()))
+                .count();
+        long stale = before.keySet().stream().filter(id -> !after.containsKey(id)).count();
+        return missingOrMoved + stale;
+    }
+
+    private static int firstStartingAtOrAfter(BookedSlot[] slots, LocalDateTime time) {
+        int low = 0;
+        int high = slots.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (slots[mid].from().isBefore(time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Set<ReservationStatus> activeStatuses() {
+        Set<ReservationStatus> statuses = EnumSet.noneOf(ReservationStatus.class);
+        for (ReservationStatus status : ReservationStatus.values()) {
+            if (status.holdsSlot()) {
+                statuses.add(status);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Slots of one resource sorted by start, with the longest slot so queries can
+     * bound their search even if slots overlap while the index catches up.
+     */
+    private record ResourceSlots(BookedSlot[] byStart, Duration longest) {
+
+        static ResourceSlots of(List<BookedSlot> slots) {
+            BookedSlot[] sorted = slots.toArray(BookedSlot[]::new);
+            Arrays.sort(sorted, BY_START);
+            return new ResourceSlots(sorted, longestOf(sorted));
+        }
+
+        ResourceSlots with(BookedSlot slot) {
+            BookedSlot[] added = Arrays.copyOf(byStart, byStart.length + 1);
+            added[byStart.length] = slot;
+            Arrays.sort(added, BY_START);
+            Duration length = Duration.between(slot.from(), slot.to());
+            return new ResourceSlots(added, length.compareTo(longest) > 0 ? length : longest);
+        }
+
+        ResourceSlots without(Long reservationId) {
+            BookedSlot[] remaining = Arrays.stream(byStart)
+                    .filter(slot -> !slot.reservationId().equals(reservationId))
+                    .toArray(BookedSlot[]::new);
+            return remaining.length == 0 ? null : new ResourceSlots(remaining, longestOf(remaining));
+        }
+
+        private static Duration longestOf(BookedSlot[] slots) {
+            Duration longest = Duration.ZERO;
+            for (BookedSlot slot : slots) {
+                Duration length = Duration.between(slot.from(), slot.to());
+                if (length.compareTo(longest) > 0) {
+                    longest = length;
+                }
+            }
+            return longest;
+        }
+    }
+}
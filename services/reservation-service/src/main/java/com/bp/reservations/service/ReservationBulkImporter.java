@@ -0,0 +1,241 @@
+package com.bp.reservations.service;
+
+import com.bp.reservations.api.dto.BulkReservationResult;
+import com.bp.reservations.api.dto.BulkReservationResult.Outcome;
+import com.bp.reservations.api.dto.CreateReservationRequest;
+import com.bp.reservations.api.dto.ReservationResponse;
+import com.bp.reservations.exception.ReservationConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates reservations from a bulk request, a chunk at a time.
+ * <p>
+ * Items are validated one by one; invalid items are reported and skipped. The valid
+ * items of a chunk are written by {@link ReservationService#createReservations} in
+ * one transaction, as JDBC batches of reservations and outbox events. If the chunk
+ * is rejected because one of its items overlaps an existing reservation or another
+ * item, the chunk is retried item by item, each in its own transaction, so only the
+ * overlapping items come back as CONFLICT and items the database rejects for
+ * another reason as FAILED.
+ * <p>
+ * Once a chunk is committed the request never fails: a line of a stream that cannot
+ * be parsed is reported as INVALID, and if the stream breaks off or a chunk cannot
+ * be written at all, the items read so far are reported and the rest is SKIPPED.
+ */
+@Slf4j
+@Component
+public class ReservationBulkImporter {
+
+    // The database message names constraints and values, so it is only logged
+    private static final Map<String, String> REJECTED = Map.of("reservation", "rejected by the database");
+    private static final Map<String, String> NOT_WRITTEN = Map.of("reservation", "could not be written");
+
+    private final ReservationService reservationService;
+    private final Validator validator;
+    private final ObjectReader requestReader;
+    private final int chunkSize;
+    private final int maxItems;
+
+    /**
+     * Instantiates a new Reservation bulk importer.
+     *
+     * @param reservationService the reservation service
+     * @param validator          the validator
+     * @param objectMapper       the object mapper, used to parse NDJSON lines
+     * @param chunkSize          the items written per transaction
+     * @param maxItems           the maximum items of one request
+     */
+    public ReservationBulkImporter(
+            ReservationService reservationService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${app.reservations.bulk.chunk-size:500}") int chunkSize,
+            @Value("${app.reservations.bulk.max-items:10000}") int maxItems
+    ) {
+        this.reservationService = reservationService;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(CreateReservationRequest.class);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Create all reservations of a request that was read in full. A request above
+     * the item limit is rejected before anything is written.
+     *
+     * @param requests the requests
+     * @return one result per request, in request order
+     */
+    public List<BulkReservationResult> importAll(List<CreateReservationRequest> requests) {
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("A bulk request takes at most " + maxItems + " items");
+        }
+        return importAll(requests.iterator());
+    }
+
+    /**
+     * Create all reservations, reading the requests as it goes. Reading stops at the
+     * item limit; the first item past it is reported as SKIPPED, and later items are
+     * neither read nor reported, while the results of the items read are returned.
+     *
+     * @param requests the requests
+     * @return one result per request read, in request order
+     */
+    public List<BulkReservationResult> importAll(Iterator<CreateReservationRequest> requests) {
+        return importItems(requests, request -> request);
+    }
+
+    /**
+     * Create all reservations of a newline-delimited JSON body, one request per line,
+     * parsing each line as it is read. Blank lines are not items. A line that is not
+     * a valid request is reported as INVALID and the next line is read.
+     *
+     * @param body the request body
+     * @return one result per line read, in request order
+     */
+    public List<BulkReservationResult> importNdjson(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return importItems(reader.lines().filter(line -> !line.isBlank()).iterator(), requestReader::readValue);
+    }
+
+    private <T> List<BulkReservationResult> importItems(Iterator<T> items, ItemParser<T> parser) {
+        List<BulkReservationResult> results = new ArrayList<>();
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        List<CreateReservationRequest> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (hasNext(items, index, results)) {
+            if (index == maxItems) {
+                // Earlier chunks may be committed already, so report the cut instead of failing
+                results.add(new BulkReservationResult(index, Outcome.SKIPPED, null,
+                        Map.of("request", "at most " + maxItems + " items are read; this and later items were not")));
+                break;
+            }
+            Map<String, String> errors;
+            CreateReservationRequest request = null;
+            try {
+                request = parser.parse(items.next());
+                errors = validate(request);
+            } catch (JsonProcessingException e) {
+                errors = Map.of("request", "not a valid reservation request: " + e.getOriginalMessage());
+            }
+            if (errors.isEmpty()) {
+                chunkIndexes.add(index);
+                chunk.add(request);
+            } else {
+                results.add(new BulkReservationResult(index, Outcome.INVALID, null, errors));
+            }
+            index++;
+            if (chunk.size() == chunkSize && !write(chunkIndexes, chunk, results)) {
+                skipRest(items, index, results);
+                break;
+            }
+        }
+        write(chunkIndexes, chunk, results);
+
+        results.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        log.info("Bulk reservation request processed: items={}, created={}", index,
+                results.stream().filter(result -> result.outcome() == Outcome.CREATED).count());
+        return results;
+    }
+
+    private boolean hasNext(Iterator<?> items, int index, List<BulkReservationResult> results) {
+        try {
+            return items.hasNext();
+        } catch (UncheckedIOException e) {
+            // The body broke off; what was read is still written and reported
+            log.warn("Bulk request body could not be read past item {}: {}", index, e.getMessage());
+            results.add(new BulkReservationResult(index, Outcome.SKIPPED, null,
+                    Map.of("request", "the request body could not be read from here on")));
+            return false;
+        }
+    }
+
+    private void skipRest(Iterator<?> items, int index, List<BulkReservationResult> results) {
+        if (hasNext(items, index, results)) {
+            results.add(new BulkReservationResult(index, Outcome.SKIPPED, null,
+                    Map.of("request", "not read: an earlier chunk could not be written")));
+        }
+    }
+
+    private boolean write(List<Integer> indexes, List<CreateReservationRequest> chunk, List<BulkReservationResult> results) {
+        if (chunk.isEmpty()) {
+            return true;
+        }
+        int reported = results.size();
+        try {
+            try {
+                List<ReservationResponse> created = reservationService.createReservations(List.copyOf(chunk));
+                for (int i = 0; i < created.size(); i++) {
+                    results.add(new BulkReservationResult(indexes.get(i), Outcome.CREATED, created.get(i), null));
+                }
+            } catch (DataIntegrityViolationException e) {
+                log.info("Bulk chunk rejected, retrying its {} items one by one: {}", chunk.size(), e.getMostSpecificCause().getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(createOne(indexes.get(i), chunk.get(i)));
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Earlier chunks are committed, so the items of this one are reported instead of failing the request
+            log.error("Bulk chunk could not be written, stopping the request: {}", e.getMessage(), e);
+            for (int i = results.size() - reported; i < chunk.size(); i++) {
+                results.add(new BulkReservationResult(indexes.get(i), Outcome.FAILED, null, NOT_WRITTEN));
+            }
+            return false;
+        } finally {
+            indexes.clear();
+            chunk.clear();
+        }
+    }
+
+    private BulkReservationResult createOne(int index, CreateReservationRequest request) {
+        try {
+            return new BulkReservationResult(index, Outcome.CREATED, reservationService.createReservation(request), null);
+        } catch (ReservationConflictException e) {
+            return new BulkReservationResult(index, Outcome.CONFLICT, null, null);
+        } catch (DataIntegrityViolationException e) {
+            // Reported per item: earlier chunks are committed, so the request itself must not fail
+            log.warn("Bulk item {} rejected by the database: {}", index, e.getMostSpecificCause().getMessage());
+            return new BulkReservationResult(index, Outcome.FAILED, null, REJECTED);
+        }
+    }
+
+    private Map<String, String> validate(CreateReservationRequest request) {
+        Map<String, String> errors = new TreeMap<>();
+        if (request == null) {
+            errors.put("request", "must not be null");
+            return errors;
+        }
+        for (ConstraintViolation<CreateReservationRequest> violation : validator.validate(request)) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (errors.isEmpty() && !request.from().isBefore(request.to())) {
+            errors.put("from", "must be before to");
+        }
+        return errors;
+    }
+
+    @FunctionalInterface
+    private interface ItemParser<T> {
+        CreateReservationRequest parse(T item) throws JsonProcessingException;
+    }
+}
@@ -0,0 +1,149 @@
+package com.bp.reservations.service;
+
+import com.bp.reservations.api.dto.ReservationResponse;
+import com.bp.reservations.entity.ReservationStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes every reservation as newline-delimited JSON, one {@link ReservationResponse}
+ * per line, in id order.
+ * <p>
+ * Rows are read through a server-side cursor: the Postgres driver only streams with
+ * a fetch size set and autocommit off, so the query runs in a read-only transaction
+ * and pulls {@code fetchSize} rows per round trip. Each row is mapped straight from
+ * the {@link ResultSet} and written out, with no Hibernate entity or persistence
+ * context involved, so heap use does not grow with the table. The output is flushed
+ * after the first row and after every fetch, so the client sees data immediately.
+ */
+@Slf4j
+@Component
+public class ReservationExporter {
+
+    private static final String SELECT_ALL = """
+            SELECT id, user_id, resource_id, start_time, end_time, status
+            FROM reservations
+            ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final int fetchSize;
+    private final long timeoutMs;
+
+    /**
+     * Instantiates a new Reservation exporter.
+     *
+     * @param jdbcTemplate       the jdbc template
+     * @param transactionManager the transaction manager
+     * @param objectMapper       the object mapper
+     * @param fetchSize          the rows fetched per round trip
+     * @param timeoutMs          the async request timeout of one export
+     */
+    public ReservationExporter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${app.reservations.export.fetch-size:1000}") int fetchSize,
+            @Value("${app.reservations.export.timeout-ms:3600000}") long timeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        // The generator is flushed per fetch below, not after every row
+        this.rowWriter = objectMapper.writerFor(ReservationResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * The async request timeout of one export. Exports run far longer than ordinary
+     * async requests, so they get their own timeout instead of the global one.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Writes all reservations to the stream. The stream is flushed but not closed.
+     *
+     * @param out the output stream
+     * @return the number of reservations written
+     * @throws IOException if writing fails, e.g. the client went away
+     */
+    public long exportAll(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            long[] written = {0};
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                write(rowWriter, generator, toResponse(rs));
+                written[0]++;
+                if (written[0] == 1 || written[0] % fetchSize == 0) {
+                    flush(generator);
+                }
+            }));
+            generator.flush();
+            log.info("Reservations exported: count={}", written[0]);
+            return written[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ReservationResponse toResponse(ResultSet rs) throws SQLException {
+        return new ReservationResponse(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getLong("resource_id"),
+                rs.getObject("start_time", LocalDateTime.class),
+                rs.getObject("end_time", LocalDateTime.class),
+                ReservationStatus.valueOf(rs.getString("status"))
+        );
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, ReservationResponse reservation) {
+        try {
+            writer.writeValue(generator, reservation);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(JsonGenerator generator) {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,23 +1,40 @@
 package com.bp.reservations.service;
 
 import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.outbox.OutboxEventSaved;
+import com.bp.reservations.api.dto.AvailabilityResponse;
 import com.bp.reservations.api.dto.CreateReservationRequest;
+import com.bp.reservations.api.dto.ReservationPage;
 import com.bp.reservations.api.dto.ReservationResponse;
 import com.bp.reservations.entity.OutboxEvent;
 import com.bp.reservations.entity.OutboxEventStatus;
 import com.bp.reservations.entity.Reservation;
 import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.exception.ReservationConflictException;
+import com.bp.reservations.repository.BookedSlot;
 import com.bp.reservations.repository.OutboxEventRepository;
+import com.bp.reservations.repository.ReservationFilter;
+import com.bp.reservations.repository.ReservationOverlapConstraint;
 import com.bp.reservations.repository.ReservationRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * The type Reservation service.
@@ -27,9 +44,23 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ReservationService {
 
+    /**
+     * The constant DEFAULT_PAGE_SIZE.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /**
+     * The constant MAX_PAGE_SIZE.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Set<ReservationStatus> RELEASED_STATUSES = EnumSet.complementOf(EnumSet.copyOf(
+            Arrays.stream(ReservationStatus.values()).filter(ReservationStatus::holdsSlot).toList()));
+
     private final ReservationRepository reservationRepository;
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservationAvailabilityIndex availabilityIndex;
 
     /**
      * Create reservation reservation response.
@@ -43,16 +74,72 @@ public class ReservationService {
             throw new IllegalArgumentException("from must be before to");
         }
 
-        Reservation reservation = Reservation.builder()
+        Reservation reservation = newReservation(request);
+
+        try {
+            reservation = reservationRepository.save(reservation);
+            // Sequence ids defer the insert to the flush; run it here so an overlap is caught below, not at commit
+            reservationRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlap(e)) {
+                log.info("Reservation rejected: resourceId={} already booked within {} - {}",
+                        request.resourceId(), request.from(), request.to());
+                throw new ReservationConflictException(
+                        "Resource " + request.resourceId() + " is already booked within the requested time", e);
+            }
+            throw e;
+        }
+        eventPublisher.publishEvent(AvailabilityChanged.booked(reservation));
+
+        OutboxEvent outboxEvent = outboxEventRepository.save(outboxEventFor(reservation));
+        eventPublisher.publishEvent(new OutboxEventSaved(List.of(outboxEvent.getId())));
+
+        log.info("Reservation created: reservationId={}", reservation.getId());
+
+        return toResponse(reservation);
+    }
+
+    /**
+     * Create valid reservations in one transaction, inserting the reservations and
+     * then their outbox events as JDBC batches.
+     * <p>
+     * If any of them overlaps an active reservation, or another one of the list, the
+     * whole transaction rolls back with the {@link DataIntegrityViolationException};
+     * callers fall back to {@link #createReservation} per request to find out which.
+     *
+     * @param requests the requests, already validated
+     * @return the reservation responses, in request order
+     */
+    @Transactional
+    public List<ReservationResponse> createReservations(List<CreateReservationRequest> requests) {
+        List<Reservation> reservations = reservationRepository.saveAll(
+                requests.stream().map(this::newReservation).toList());
+        // Send the reservation batch now, so an overlap surfaces here and not at commit
+        reservationRepository.flush();
+        eventPublisher.publishEvent(AvailabilityChanged.booked(reservations));
+
+        List<OutboxEvent> outboxEvents = outboxEventRepository.saveAll(
+                reservations.stream().map(this::outboxEventFor).toList());
+        eventPublisher.publishEvent(new OutboxEventSaved(outboxEvents.stream().map(OutboxEvent::getId).toList()));
+
+        log.info("Reservations created in bulk: count={}", reservations.size());
+
+        return reservations.stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    private Reservation newReservation(CreateReservationRequest request) {
+        return Reservation.builder()
                 .userId(request.userId())
                 .resourceId(request.resourceId())
                 .startTime(request.from())
                 .endTime(request.to())
                 .status(ReservationStatus.CREATED)
                 .build();
+    }
 
-        reservation = reservationRepository.save(reservation);
-
+    private OutboxEvent outboxEventFor(Reservation reservation) {
         ReservationCreatedEvent event = new ReservationCreatedEvent(
                 reservation.getId(),
                 reservation.getUserId(),
@@ -62,23 +149,19 @@ public class ReservationService {
         );
 
         try {
-            OutboxEvent outboxEvent = OutboxEvent.builder()
+            return OutboxEvent.builder()
                     .aggregateType("Reservation")
                     .aggregateId(reservation.getId())
                     .eventType(event.getClass().getSimpleName())
                     .payload(objectMapper.writeValueAsString(event))
+                    .messageKey(String.valueOf(event.reservationId()))
                     .status(OutboxEventStatus.NEW)
                     .createdAt(LocalDateTime.now())
                     .build();
-            outboxEventRepository.save(outboxEvent);
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize ReservationCreatedEvent for reservationId={}: {}", reservation.getId(), e.getMessage());
             throw new RuntimeException("Failed to serialize event", e);
         }
-
-        log.info("Reservation created: reservationId={}", reservation.getId());
-
-        return toResponse(reservation);
     }
 
     /**
@@ -100,15 +183,32 @@ public class ReservationService {
     }
 
     /**
-     * Gets all.
+     * Gets one keyset page of the filtered reservations, in id order.
      *
-     * @return the all
+     * @param filter the filter
+     * @param after  the last id of the previous page, or null for the first page
+     * @param limit  the page size, or null for {@link #DEFAULT_PAGE_SIZE}
+     * @return the reservation page
      */
     @Transactional(readOnly = true)
-    public List<ReservationResponse> getAll() {
-        return reservationRepository.findAll().stream()
+    public ReservationPage getAll(ReservationFilter filter, Long after, Integer limit) {
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // One extra row tells whether another page follows, without a count query
+        List<Reservation> rows = reservationRepository.findPage(filter, after, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ReservationResponse> items = rows.stream()
+                .limit(pageSize)
                 .map(this::toResponse)
                 .toList();
+        Long nextCursor = hasMore ? items.get(items.size() - 1).id() : null;
+        return new ReservationPage(items, nextCursor);
     }
 
     /**
@@ -133,17 +233,10 @@ public class ReservationService {
                     );
                 });
 
-        ReservationStatus newStatus;
-        switch (paymentStatus) {
-            case CONFIRMED:
-                newStatus = ReservationStatus.PAID;
-                break;
-            case FAILED:
-                newStatus = ReservationStatus.PAYMENT_FAILED;
-                break;
-            default:
-                log.warn("Unknown payment status received: {}. Skipping reservation status update.", paymentStatus);
-                return;
+        ReservationStatus newStatus = toReservationStatus(paymentStatus);
+        if (newStatus == null) {
+            log.warn("Unknown payment status received: {}. Skipping reservation status update.", paymentStatus);
+            return;
         }
 
         if (reservation.getStatus() == newStatus) {
@@ -158,24 +251,94 @@ public class ReservationService {
                 newStatus
         );
         reservation.setStatus(newStatus);
+        flushStatus(reservation);
+        eventPublisher.publishEvent(AvailabilityChanged.of(reservation));
     }
 
     /**
-     * Gets by user id.
+     * Apply the final payment outcome of a batch of reservations.
+     * <p>
+     * Reservations are grouped by target status and each group is written with one
+     * conditional UPDATE that skips rows already in that status. Nothing is updated
+     * if any reservation is missing, so the caller can retry record by record.
+     *
+     * @param finalStatuses the last payment status seen per reservation id
+     * @return the number of reservations whose status changed
+     */
+    @Transactional
+    public int applyPaymentStatuses(Map<Long, com.bp.common.events.PaymentStatus> finalStatuses) {
+        if (finalStatuses.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> existing = reservationRepository.findExistingIds(finalStatuses.keySet());
+        if (existing.size() < finalStatuses.size()) {
+            Set<Long> missing = new TreeSet<>(finalStatuses.keySet());
+            missing.removeAll(existing);
+            throw new com.bp.reservations.exception.EntityNotFoundException(
+                    "Reservations with ids " + missing + " not found"
+            );
+        }
+
+        Map<ReservationStatus, List<Long>> idsByStatus = new EnumMap<>(ReservationStatus.class);
+        finalStatuses.forEach((reservationId, paymentStatus) -> {
+            ReservationStatus newStatus = toReservationStatus(paymentStatus);
+            if (newStatus == null) {
+                log.warn("Unknown payment status received: {}. Skipping reservationId={}", paymentStatus, reservationId);
+                return;
+            }
+            idsByStatus.computeIfAbsent(newStatus, status -> new ArrayList<>()).add(reservationId);
+        });
+
+        int updated = 0;
+        List<Long> released = new ArrayList<>();
+        List<BookedSlot> rebooked = new ArrayList<>();
+        for (Map.Entry<ReservationStatus, List<Long>> group : idsByStatus.entrySet()) {
+            if (group.getKey().holdsSlot()) {
+                // e.g. a late confirmation after PAYMENT_FAILED: the slot is taken again
+                rebooked.addAll(reservationRepository.findSlots(group.getValue(), RELEASED_STATUSES));
+            } else {
+                released.addAll(group.getValue());
+            }
+            try {
+                updated += reservationRepository.updateStatusWhereDifferent(group.getValue(), group.getKey());
+            } catch (DataIntegrityViolationException e) {
+                if (isOverlap(e)) {
+                    throw new ReservationConflictException(
+                            "One of reservations " + group.getValue() + " overlaps a reservation that took its slot", e);
+                }
+                throw e;
+            }
+        }
+        if (!released.isEmpty()) {
+            eventPublisher.publishEvent(AvailabilityChanged.released(released));
+        }
+        if (!rebooked.isEmpty()) {
+            eventPublisher.publishEvent(AvailabilityChanged.bookedSlots(rebooked));
+        }
+
+        log.info("Payment statuses applied: reservations={}, updated={}", finalStatuses.size(), updated);
+        return updated;
+    }
+
+    /**
+     * Gets one keyset page of a user's reservations, in id order.
      *
      * @param userId the user id
-     * @return the by user id
+     * @param after  the last id of the previous page, or null for the first page
+     * @param limit  the page size, or null for {@link #DEFAULT_PAGE_SIZE}
+     * @return the reservation page
      */
     @Transactional(readOnly = true)
-    public List<ReservationResponse> getByUserId(Long userId) {
-        return reservationRepository.findByUserId(userId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+    public ReservationPage getByUserId(Long userId, Long after, Integer limit) {
+        return getAll(ReservationFilter.byUser(userId), after, limit);
     }
 
     /**
      * Update status reservation response.
+     * <p>
+     * Moving a released reservation back to a slot-holding status fails with a
+     * {@link ReservationConflictException} if its slot has been booked since.
      *
      * @param id        the id
      * @param newStatus the new status
@@ -207,6 +370,8 @@ public class ReservationService {
         );
 
         reservation.setStatus(newStatus);
+        flushStatus(reservation);
+        eventPublisher.publishEvent(AvailabilityChanged.of(reservation));
         return toResponse(reservation);
     }
 
@@ -231,6 +396,7 @@ public class ReservationService {
 
         log.info("Cancelling reservation {}", id);
         reservation.setStatus(ReservationStatus.CANCELLED);
+        eventPublisher.publishEvent(AvailabilityChanged.released(List.of(id)));
     }
 
     /**
@@ -241,6 +407,74 @@ public class ReservationService {
         log.warn("Cancelling ALL reservations");
 
         reservationRepository.cancelAllActive();
+        eventPublisher.publishEvent(AvailabilityChanged.releasedAll());
+    }
+
+    /**
+     * Free and booked time of a resource within {@code [from, to)}, served from the
+     * in-memory availability index without a database query.
+     *
+     * @param resourceId the resource id
+     * @param from       the start, inclusive
+     * @param to         the end, exclusive
+     * @return the availability response
+     */
+    public AvailabilityResponse getAvailability(Long resourceId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        List<AvailabilityResponse.Window> booked = new ArrayList<>();
+        List<AvailabilityResponse.Window> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookedSlot slot : availabilityIndex.bookedBetween(resourceId, from, to)) {
+            booked.add(new AvailabilityResponse.Window(slot.from(), slot.to()));
+            if (slot.from().isAfter(cursor)) {
+                free.add(new AvailabilityResponse.Window(cursor, slot.from()));
+            }
+            if (slot.to().isAfter(cursor)) {
+                cursor = slot.to();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new AvailabilityResponse.Window(cursor, to));
+        }
+
+        return new AvailabilityResponse(resourceId, from, to, booked.isEmpty(), free, booked);
+    }
+
+    private void flushStatus(Reservation reservation) {
+        try {
+            // Back to a slot-holding status, the UPDATE can hit the exclusion constraint; run it here, not at commit
+            reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlap(e)) {
+                log.info("Status change rejected: reservationId={} overlaps a reservation that took its slot",
+                        reservation.getId());
+                throw new ReservationConflictException(
+                        "Resource " + reservation.getResourceId() + " is already booked within the time of reservation "
+                                + reservation.getId(), e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isOverlap(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && ReservationOverlapConstraint.EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ReservationStatus toReservationStatus(com.bp.common.events.PaymentStatus paymentStatus) {
+        return switch (paymentStatus) {
+            case CONFIRMED -> ReservationStatus.PAID;
+            case FAILED -> ReservationStatus.PAYMENT_FAILED;
+            default -> null;
+        };
     }
 
     private ReservationResponse toResponse(Reservation reservation) {
@@ -0,0 +1,172 @@
+package com.bp.reservations.api;
+
+import com.bp.reservations.entity.Reservation;
+import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.repository.BookedSlot;
+import com.bp.reservations.repository.ReservationRepository;
+import com.bp.reservations.service.AvailabilityChanged;
+import com.bp.reservations.service.ReservationAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationAvailabilityIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 1, 10, 0, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new ReservationAvailabilityIndex(reservationRepository, meterRegistry,
+                Clock.fixed(DAY.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    @Test
+    void shouldLoadActiveReservationsOnStartup() {
+        when(reservationRepository.findBookedSlots(any(), any())).thenAnswer(invocation -> {
+            assertThat(invocation.<Iterable<ReservationStatus>>getArgument(0))
+                    .containsExactlyInAnyOrder(ReservationStatus.CREATED, ReservationStatus.PAID);
+            assertThat(invocation.<LocalDateTime>getArgument(1)).isEqualTo(DAY);
+            return List.of(slot(1L, 10L, 10, 12), slot(2L, 10L, 8, 9), slot(3L, 20L, 10, 12));
+        });
+
+        index.afterPropertiesSet();
+
+        assertThat(index.bookedBetween(10L, at(0), at(24)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(2L, 1L);
+        assertThat(meterRegistry.get("reservations.availability.indexed").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldTreatSlotsAsHalfOpen() {
+        when(reservationRepository.findBookedSlots(any(), any())).thenReturn(List.of(slot(1L, 10L, 10, 12)));
+        index.rebuild();
+
+        assertThat(index.bookedBetween(10L, at(8), at(10))).isEmpty();
+        assertThat(index.bookedBetween(10L, at(12), at(14))).isEmpty();
+        assertThat(index.bookedBetween(10L, at(11), at(11).plusMinutes(1))).hasSize(1);
+        assertThat(index.bookedBetween(99L, at(0), at(24))).isEmpty();
+    }
+
+    @Test
+    void shouldFindLongSlotsStartingWellBeforeTheRange() {
+        List<BookedSlot> slots = new ArrayList<>();
+        slots.add(new BookedSlot(1L, 10L, DAY.minusDays(3), DAY.plusDays(1)));
+        for (long hour = 0; hour < 20; hour++) {
+            slots.add(new BookedSlot(100 + hour, 10L, DAY.minusDays(5).plusHours(hour), DAY.minusDays(5).plusHours(hour + 1)));
+        }
+        when(reservationRepository.findBookedSlots(any(), any())).thenReturn(slots);
+        index.rebuild();
+
+        assertThat(index.bookedBetween(10L, at(10), at(12)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void shouldApplyBookedAndReleasedChanges() {
+        when(reservationRepository.findBookedSlots(any(), any())).thenReturn(List.of(slot(1L, 10L, 10, 12)));
+        index.rebuild();
+
+        index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(2L, 10L, 14, 16, ReservationStatus.CREATED)));
+        index.onAvailabilityChanged(AvailabilityChanged.of(reservation(1L, 10L, 10, 12, ReservationStatus.PAYMENT_FAILED)));
+
+        assertThat(index.bookedBetween(10L, at(0), at(24)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(2L);
+
+        index.onAvailabilityChanged(AvailabilityChanged.releasedAll());
+
+        assertThat(index.bookedBetween(10L, at(0), at(24))).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void shouldReplaceSlotWhenTheSameReservationIsBookedAgain() {
+        index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(1L, 10L, 10, 12, ReservationStatus.CREATED)));
+        index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(1L, 10L, 10, 12, ReservationStatus.PAID)));
+
+        assertThat(index.bookedBetween(10L, at(0), at(24))).hasSize(1);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIgnoreSlotsThatHaveEnded() {
+        index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(1L, 10L, -3, -1, ReservationStatus.PAID)));
+        index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(2L, 10L, -1, 1, ReservationStatus.PAID)));
+
+        assertThat(index.bookedBetween(10L, at(-4), at(2)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountDriftCorrectedByRebuild() {
+        when(reservationRepository.findBookedSlots(any(), any()))
+                .thenReturn(List.of(slot(1L, 10L, 10, 12), slot(2L, 10L, 14, 16)))
+                .thenReturn(List.of(slot(2L, 10L, 14, 16), slot(3L, 10L, 18, 20)));
+        index.rebuild();
+
+        index.rebuild();
+
+        assertThat(index.bookedBetween(10L, at(0), at(24)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(2L, 3L);
+        assertThat(meterRegistry.get("reservations.availability.drift").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReplayChangesCommittedWhileRebuildIsLoading() {
+        when(reservationRepository.findBookedSlots(any(), any())).thenAnswer(invocation -> {
+            index.onAvailabilityChanged(AvailabilityChanged.booked(reservation(2L, 10L, 14, 16, ReservationStatus.CREATED)));
+            return List.of(slot(1L, 10L, 10, 12));
+        });
+
+        index.rebuild();
+
+        assertThat(index.bookedBetween(10L, at(0), at(24)))
+                .extracting(BookedSlot::reservationId)
+                .containsExactly(1L, 2L);
+    }
+
+    private static LocalDateTime at(int hour) {
+        return DAY.plusHours(hour);
+    }
+
+    private static BookedSlot slot(Long reservationId, Long resourceId, int fromHour, int toHour) {
+        return new BookedSlot(reservationId, resourceId, at(fromHour), at(toHour));
+    }
+
+    private static Reservation reservation(Long id, Long resourceId, int fromHour, int toHour, ReservationStatus status) {
+        return Reservation.builder()
+                .id(id)
+                .userId(1L)
+                .resourceId(resourceId)
+                .startTime(at(fromHour))
+                .endTime(at(toHour))
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,201 @@
+package com.bp.reservations.api;
+
+import com.bp.reservations.api.dto.BulkReservationResult;
+import com.bp.reservations.api.dto.BulkReservationResult.Outcome;
+import com.bp.reservations.api.dto.CreateReservationRequest;
+import com.bp.reservations.api.dto.ReservationResponse;
+import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.exception.ReservationConflictException;
+import com.bp.reservations.service.ReservationBulkImporter;
+import com.bp.reservations.service.ReservationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationBulkImporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @Mock
+    private ReservationService reservationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private ValidatorFactory validatorFactory;
+    private ReservationBulkImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        importer = new ReservationBulkImporter(reservationService, validatorFactory.getValidator(), objectMapper, 2, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldWriteValidItemsInChunksAndReportInvalidOnes() {
+        when(reservationService.createReservations(any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        List<BulkReservationResult> results = importer.importAll(List.of(
+                request(1L, 0),
+                new CreateReservationRequest(1L, null, FROM, FROM.plusHours(1)),
+                request(2L, 0),
+                new CreateReservationRequest(1L, 3L, FROM.plusHours(2), FROM.plusHours(1)),
+                request(4L, 0)
+        ).iterator());
+
+        assertThat(results).extracting(BulkReservationResult::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(BulkReservationResult::outcome).containsExactly(
+                Outcome.CREATED, Outcome.INVALID, Outcome.CREATED, Outcome.INVALID, Outcome.CREATED);
+        assertThat(results.get(1).errors()).containsOnlyKeys("resourceId");
+        assertThat(results.get(3).errors()).containsOnlyKeys("from");
+        assertThat(results.get(4).reservation().resourceId()).isEqualTo(4L);
+        verify(reservationService).createReservations(List.of(request(1L, 0), request(2L, 0)));
+        verify(reservationService).createReservations(List.of(request(4L, 0)));
+        verify(reservationService, never()).createReservation(any());
+    }
+
+    @Test
+    void shouldRetryRejectedChunkItemByItem() {
+        when(reservationService.createReservations(any()))
+                .thenThrow(new DataIntegrityViolationException("reservations_no_overlap"));
+        when(reservationService.createReservation(request(1L, 0)))
+                .thenReturn(response(1L, request(1L, 0)));
+        when(reservationService.createReservation(request(1L, 1)))
+                .thenThrow(new ReservationConflictException("Resource 1 is already booked"));
+
+        List<BulkReservationResult> results = importer.importAll(List.of(request(1L, 0), request(1L, 1)).iterator());
+
+        assertThat(results).extracting(BulkReservationResult::outcome)
+                .containsExactly(Outcome.CREATED, Outcome.CONFLICT);
+        assertThat(results.get(0).reservation().id()).isEqualTo(1L);
+        assertThat(results.get(1).reservation()).isNull();
+    }
+
+    @Test
+    void shouldReportItemRejectedByDatabaseWithoutFailingRequest() {
+        when(reservationService.createReservations(any()))
+                .thenThrow(new DataIntegrityViolationException("could not execute batch"));
+        when(reservationService.createReservation(request(1L, 0)))
+                .thenThrow(new DataIntegrityViolationException("null value in column"));
+        when(reservationService.createReservation(request(2L, 0)))
+                .thenReturn(response(2L, request(2L, 0)));
+
+        List<BulkReservationResult> results = importer.importAll(List.of(request(1L, 0), request(2L, 0)).iterator());
+
+        assertThat(results).extracting(BulkReservationResult::outcome)
+                .containsExactly(Outcome.FAILED, Outcome.CREATED);
+        assertThat(results.get(0).errors()).containsExactlyEntriesOf(Map.of("reservation", "rejected by the database"));
+    }
+
+    @Test
+    void shouldRejectRequestsAboveMaxItems() {
+        List<CreateReservationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(new CreateReservationRequest(1L, null, FROM, FROM.plusHours(1)));
+        }
+
+        assertThatThrownBy(() -> importer.importAll(requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("5");
+        verifyNoInteractions(reservationService);
+    }
+
+    @Test
+    void shouldStopReadingStreamAtMaxItemsAndKeepCommittedResults() {
+        when(reservationService.createReservations(any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        List<CreateReservationRequest> requests = new ArrayList<>();
+        for (long resourceId = 1; resourceId <= 7; resourceId++) {
+            requests.add(request(resourceId, 0));
+        }
+        Iterator<CreateReservationRequest> stream = requests.iterator();
+
+        List<BulkReservationResult> results = importer.importAll(stream);
+
+        assertThat(results).extracting(BulkReservationResult::outcome).containsExactly(
+                Outcome.CREATED, Outcome.CREATED, Outcome.CREATED, Outcome.CREATED, Outcome.CREATED, Outcome.SKIPPED);
+        assertThat(results.get(5).index()).isEqualTo(5);
+        assertThat(stream.next().resourceId()).isEqualTo(6L);
+    }
+
+    @Test
+    void shouldReportMalformedLineAsInvalidAndKeepReading() throws Exception {
+        when(reservationService.createReservations(any())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        String body = line(request(1L, 0)) + "\n"
+                + "{\"userId\": 1, \"resourceId\": \n"
+                + "\n"
+                + line(request(2L, 0)) + "\n"
+                + line(request(3L, 0)) + "\n";
+
+        List<BulkReservationResult> results = importer.importNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(results).extracting(BulkReservationResult::index).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(BulkReservationResult::outcome).containsExactly(
+                Outcome.CREATED, Outcome.INVALID, Outcome.CREATED, Outcome.CREATED);
+        assertThat(results.get(1).errors()).containsOnlyKeys("request");
+        verify(reservationService).createReservations(List.of(request(1L, 0), request(2L, 0)));
+        verify(reservationService).createReservations(List.of(request(3L, 0)));
+    }
+
+    @Test
+    void shouldReportUnwrittenChunkAndSkipTheRestWithoutFailingRequest() {
+        when(reservationService.createReservations(any()))
+                .thenAnswer(invocation -> created(invocation.getArgument(0)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        List<CreateReservationRequest> requests = List.of(
+                request(1L, 0), request(2L, 0), request(3L, 0), request(4L, 0), request(5L, 0));
+
+        List<BulkReservationResult> results = importer.importAll(requests.iterator());
+
+        assertThat(results).extracting(BulkReservationResult::outcome).containsExactly(
+                Outcome.CREATED, Outcome.CREATED, Outcome.FAILED, Outcome.FAILED, Outcome.SKIPPED);
+        assertThat(results.get(2).errors()).containsEntry("reservation", "could not be written");
+        assertThat(results.get(4).index()).isEqualTo(4);
+        verify(reservationService, times(2)).createReservations(any());
+    }
+
+    private String line(CreateReservationRequest request) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(request);
+    }
+
+    private static CreateReservationRequest request(Long resourceId, int slot) {
+        return new CreateReservationRequest(1L, resourceId, FROM.plusHours(2L * slot), FROM.plusHours(2L * slot + 1));
+    }
+
+    private static List<ReservationResponse> created(List<CreateReservationRequest> requests) {
+        return requests.stream().map(request -> response(request.resourceId() * 10, request)).toList();
+    }
+
+    private static ReservationResponse response(Long id, CreateReservationRequest request) {
+        return new ReservationResponse(id, request.userId(), request.resourceId(), request.from(), request.to(),
+                ReservationStatus.CREATED);
+    }
+}
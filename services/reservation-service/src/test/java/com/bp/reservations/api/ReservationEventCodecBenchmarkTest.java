@@ -0,0 +1,101 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.events.codec.BinaryEventCodec;
+import com.bp.common.events.codec.EventContentType;
+import com.bp.common.events.codec.NegotiatingEventDeserializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Encoded size and encode/decode cost of the binary codec against the JSON path
+ * (JsonSerializer with type headers, JsonDeserializer behind the negotiating deserializer).
+ * <p>
+ * Not part of the regular build; run it with
+ * {@code mvn -pl services/reservation-service -am test -Dtest=ReservationEventCodecBenchmarkTest -Dbenchmark=true
+ * -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReservationEventCodecBenchmarkTest {
+
+    private static final String TOPIC = "bench";
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final List<Object> EVENTS = List.of(
+            new ReservationCreatedEvent(123456L, 42L, 7L,
+                    LocalDateTime.of(2026, 10, 17, 10, 0), LocalDateTime.of(2026, 10, 17, 12, 30)),
+            new PaymentConfirmedEvent(98765L, 123456L, PaymentStatus.CONFIRMED),
+            new PaymentFailedEvent(98766L, 123457L, "Insufficient funds")
+    );
+
+    private static volatile Object sink;
+
+    @Test
+    void compareBinaryWithJson() {
+        NegotiatingEventDeserializer deserializer = new NegotiatingEventDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "com.bp.common.events"), false);
+
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            for (Object event : EVENTS) {
+                RecordHeaders jsonHeaders = new RecordHeaders();
+                byte[] json = serializer.serialize(TOPIC, jsonHeaders, event);
+                Headers binaryHeaders = new RecordHeaders()
+                        .add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.BINARY));
+                byte[] binary = BinaryEventCodec.encode(event);
+
+                assertEquals(event, deserializer.deserialize(TOPIC, new RecordHeaders(jsonHeaders.toArray()), json));
+                assertEquals(event, deserializer.deserialize(TOPIC, binaryHeaders, binary));
+
+                double jsonEncode = nanosPerOp(() -> serializer.serialize(TOPIC, new RecordHeaders(), event));
+                double binaryEncode = nanosPerOp(() -> BinaryEventCodec.encode(event));
+                // JsonDeserializer strips the type header it reads, so each call gets its own copy
+                double jsonDecode = nanosPerOp(() ->
+                        deserializer.deserialize(TOPIC, new RecordHeaders(jsonHeaders.toArray()), json));
+                double binaryDecode = nanosPerOp(() ->
+                        deserializer.deserialize(TOPIC, new RecordHeaders(binaryHeaders.toArray()), binary));
+
+                System.out.printf("%-24s size json=%d+%d hdr binary=%d+%d hdr | encode json=%.0fns binary=%.0fns"
+                                + " | decode json=%.0fns binary=%.0fns%n",
+                        event.getClass().getSimpleName(),
+                        json.length, headerBytes(jsonHeaders), binary.length, headerBytes(binaryHeaders),
+                        jsonEncode, binaryEncode, jsonDecode, binaryDecode);
+            }
+        } finally {
+            deserializer.close();
+        }
+    }
+
+    private static double nanosPerOp(Supplier<Object> op) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = op.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = op.get();
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS;
+    }
+
+    private static int headerBytes(Headers headers) {
+        int size = 0;
+        for (Header header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
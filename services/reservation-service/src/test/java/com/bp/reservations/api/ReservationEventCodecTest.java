@@ -0,0 +1,132 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.events.PaymentFailedEvent;
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.events.codec.BinaryEventCodec;
+import com.bp.common.events.codec.EventContentType;
+import com.bp.common.events.codec.NegotiatingEventDeserializer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationEventCodecTest {
+
+    private static final String TOPIC = "reservation-created";
+
+    private static final ReservationCreatedEvent RESERVATION_CREATED = new ReservationCreatedEvent(
+            123456L, 42L, 7L,
+            LocalDateTime.of(2026, 10, 17, 10, 0),
+            LocalDateTime.of(2026, 10, 17, 12, 30, 15, 500_000_000));
+
+    private NegotiatingEventDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        deserializer = new NegotiatingEventDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "com.bp.common.events"), false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deserializer.close();
+    }
+
+    @Test
+    void shouldRoundTripEveryEventType() {
+        Object[] events = {
+                RESERVATION_CREATED,
+                new PaymentConfirmedEvent(9L, 123456L, PaymentStatus.CONFIRMED),
+                new PaymentFailedEvent(10L, 123457L, "Karta zamietnutá – insufficient funds")
+        };
+
+        for (Object event : events) {
+            assertEquals(event, BinaryEventCodec.decode(BinaryEventCodec.encode(event)));
+        }
+    }
+
+    @Test
+    void shouldRoundTripNullsAndExtremeValues() {
+        ReservationCreatedEvent sparse = new ReservationCreatedEvent(
+                Long.MIN_VALUE, null, -1L, null, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1));
+        PaymentConfirmedEvent noStatus = new PaymentConfirmedEvent(Long.MAX_VALUE, null, null);
+
+        assertEquals(sparse, BinaryEventCodec.decode(BinaryEventCodec.encode(sparse)));
+        assertEquals(noStatus, BinaryEventCodec.decode(BinaryEventCodec.encode(noStatus)));
+    }
+
+    @Test
+    void shouldSkipComponentsAppendedByNewerSchemaVersion() {
+        byte[] encoded = BinaryEventCodec.encode(RESERVATION_CREATED);
+        byte[] newer = Arrays.copyOf(encoded, encoded.length + 2);
+        newer[1] = (byte) (BinaryEventCodec.SCHEMA_VERSION + 1);
+        newer[encoded.length] = 0x02;
+        newer[encoded.length + 1] = 0x7F;
+
+        assertEquals(RESERVATION_CREATED, BinaryEventCodec.decode(newer));
+    }
+
+    @Test
+    void shouldRejectPayloadsItCannotRead() {
+        byte[] encoded = BinaryEventCodec.encode(RESERVATION_CREATED);
+
+        assertThrows(SerializationException.class, () -> BinaryEventCodec.decode("{}".getBytes()));
+        assertThrows(SerializationException.class,
+                () -> BinaryEventCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(SerializationException.class, () -> BinaryEventCodec.encode("not an event"));
+    }
+
+    @Test
+    void shouldBeFarSmallerThanJsonWithTypeHeader() {
+        byte[] binary = BinaryEventCodec.encode(RESERVATION_CREATED);
+
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json;
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            json = serializer.serialize(TOPIC, headers, RESERVATION_CREATED);
+        }
+        int jsonSize = json.length + headers.lastHeader("__TypeId__").value().length;
+
+        assertTrue(binary.length * 4 < jsonSize, binary.length + " bytes vs " + jsonSize + " bytes of JSON");
+    }
+
+    @Test
+    void shouldNegotiateFormatPerRecord() {
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] json;
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            json = serializer.serialize(TOPIC, jsonHeaders, RESERVATION_CREATED);
+        }
+
+        Headers binaryHeaders = new RecordHeaders()
+                .add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.BINARY));
+        byte[] binary = BinaryEventCodec.encode(RESERVATION_CREATED);
+
+        assertEquals(RESERVATION_CREATED, deserializer.deserialize(TOPIC, jsonHeaders, json));
+        assertEquals(RESERVATION_CREATED, deserializer.deserialize(TOPIC, binaryHeaders, binary));
+    }
+
+    @Test
+    void shouldTreatLastContentTypeHeaderAsAuthoritative() {
+        Headers headers = new RecordHeaders()
+                .add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.BINARY))
+                .add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.JSON));
+        byte[] json;
+        try (JsonSerializer<Object> serializer = new JsonSerializer<>()) {
+            json = serializer.serialize(TOPIC, headers, RESERVATION_CREATED);
+        }
+
+        assertEquals(RESERVATION_CREATED, deserializer.deserialize(TOPIC, headers, json));
+    }
+}
@@ -0,0 +1,87 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.kafka.EventLatencyInterceptor;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationEventLatencyTest {
+
+    private static final String TOPIC = "payment-confirmed";
+    private static final Instant OCCURRED = Instant.parse("2026-10-17T10:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventLatencyInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new EventLatencyInterceptor(meterRegistry,
+                Clock.fixed(OCCURRED.plusMillis(350), ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldRoundTripEnvelopeThroughHeaders() {
+        EventEnvelope envelope = new EventEnvelope("id-1", "42", OCCURRED, OCCURRED.plusMillis(5), null);
+        RecordHeaders headers = new RecordHeaders();
+
+        envelope.writeTo(headers);
+        envelope.withPublishedAt(OCCURRED.plusMillis(100)).writeTo(headers);
+
+        assertThat(EventEnvelope.from(headers)).isEqualTo(envelope.withPublishedAt(OCCURRED.plusMillis(100)));
+        assertThat(headers.headers(EventEnvelope.EVENT_ID)).hasSize(1);
+        assertThat(EventEnvelope.from(new RecordHeaders()))
+                .isEqualTo(new EventEnvelope(null, null, null, null, null));
+    }
+
+    @Test
+    void shouldRecordEachHopOfConsumedRecord() {
+        ConsumerRecord<String, Object> record = record(
+                new EventEnvelope("id-1", "42", OCCURRED, OCCURRED.plusMillis(50), OCCURRED.plusMillis(200)));
+
+        interceptor.intercept(record, null);
+
+        assertThat(latency("outbox").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(150);
+        assertThat(latency("broker").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(150);
+        assertThat(latency("end_to_end").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(350);
+    }
+
+    @Test
+    void shouldRecordEveryRecordOfBatchAndCountMissingEnvelopes() {
+        ConsumerRecord<String, Object> stamped = record(
+                new EventEnvelope("id-1", "42", OCCURRED, OCCURRED, OCCURRED.plusMillis(400)));
+        ConsumerRecord<String, Object> legacy = new ConsumerRecord<>(TOPIC, 0, 1L, "43", "legacy");
+
+        interceptor.intercept(new ConsumerRecords<>(Map.of(new TopicPartition(TOPIC, 0), List.of(stamped, legacy))), null);
+
+        // Published "after" consumption by a skewed producer clock: recorded as zero, not negative
+        assertThat(latency("broker").count()).isEqualTo(1);
+        assertThat(latency("broker").totalTime(TimeUnit.MILLISECONDS)).isZero();
+        assertThat(meterRegistry.get("event.envelope.missing").tag("topic", TOPIC).counter().count()).isEqualTo(1);
+    }
+
+    private Timer latency(String stage) {
+        return meterRegistry.get("event.latency").tag("stage", stage).tag("topic", TOPIC).timer();
+    }
+
+    private static ConsumerRecord<String, Object> record(EventEnvelope envelope) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>(TOPIC, 0, 0L, "42", "event");
+        envelope.writeTo(record.headers());
+        return record;
+    }
+}
@@ -0,0 +1,169 @@
+package com.bp.reservations.api;
+
+import com.bp.reservations.service.ReservationBulkImporter;
+import com.bp.reservations.service.ReservationExporter;
+import com.bp.reservations.service.ReservationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationExporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 10, 10, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    void shouldStreamRowsAsNdjsonThroughCursor() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        streamRows(3);
+        RecordingOutputStream out = new RecordingOutputStream();
+
+        long written = new ReservationExporter(jdbcTemplate, transactionManager, objectMapper, 2, 60_000).exportAll(out);
+
+        assertThat(written).isEqualTo(3);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("from").asText()).isEqualTo("2026-01-10T10:00:00");
+        assertThat(first.get("status").asText()).isEqualTo("PAID");
+        // first row, second fetch and the end of the export
+        assertThat(out.bytesAtFlush).containsExactly(lines[0].length() + 1, out.size() - lines[2].length() - 1, out.size());
+
+        verify(statement).setFetchSize(2);
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        verify(transactionManager).commit(transactionStatus);
+        assertThat(out.closed).isFalse();
+    }
+
+    @Test
+    void shouldWriteNothingForEmptyTable() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        streamRows(0);
+        RecordingOutputStream out = new RecordingOutputStream();
+
+        long written = new ReservationExporter(jdbcTemplate, transactionManager, objectMapper, 1000, 60_000).exportAll(out);
+
+        assertThat(written).isZero();
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void shouldGiveExportRequestItsOwnAsyncTimeout() {
+        ReservationExporter exporter = new ReservationExporter(jdbcTemplate, transactionManager, objectMapper, 1000, 3_600_000);
+        ReservationController controller = new ReservationController(
+                mock(ReservationService.class), exporter, mock(ReservationBulkImporter.class));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        AsyncWebRequest asyncWebRequest = mock(AsyncWebRequest.class);
+        WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+
+        controller.exportAll(request);
+
+        verify(asyncWebRequest).setTimeout(3_600_000L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void streamRows(int rows) throws Exception {
+        doAnswer(invocation -> {
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+            assertThat(creator.createPreparedStatement(connection)).isSameAs(statement);
+            if (rows > 0) {
+                stubRows(rows);
+            }
+            for (int i = 0; i < rows; i++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private void stubRows(int rows) throws Exception {
+        Long[] ids = new Long[rows - 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (long) i + 2;
+        }
+        when(resultSet.getLong("id")).thenReturn(1L, ids);
+        when(resultSet.getLong("user_id")).thenReturn(7L);
+        when(resultSet.getLong("resource_id")).thenReturn(42L);
+        when(resultSet.getObject("start_time", LocalDateTime.class)).thenReturn(FROM);
+        when(resultSet.getObject("end_time", LocalDateTime.class)).thenReturn(FROM.plusHours(2));
+        when(resultSet.getString("status")).thenReturn("PAID");
+    }
+
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+
+        private final List<Integer> bytesAtFlush = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public void flush() {
+            if (bytesAtFlush.isEmpty() || bytesAtFlush.get(bytesAtFlush.size() - 1) != size()) {
+                bytesAtFlush.add(size());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.idempotency.ProcessedEventStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationIdempotentConsumerTest {
+
+    @Mock
+    private ProcessedEventStore store;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotentConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new IdempotentConsumer(store, TransactionOperations.withoutTransaction(), 100, meterRegistry);
+    }
+
+    @Test
+    void shouldSkipStoreForRecentlyProcessedEvent() {
+        List<String> handled = new ArrayList<>();
+        when(store.insertNew(List.of("e-1"))).thenReturn(Set.of("e-1"));
+
+        consumer.handle("e-1", "first", handled::add);
+        consumer.handle("e-1", "again", handled::add);
+
+        assertThat(handled).containsExactly("first");
+        verify(store, times(1)).insertNew(List.of("e-1"));
+        assertThat(duplicates("cache")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldSkipHandlerWhenStoreAlreadyHasEvent() {
+        List<String> handled = new ArrayList<>();
+        when(store.insertNew(List.of("e-1"))).thenReturn(Set.of());
+
+        consumer.handle("e-1", "event", handled::add);
+
+        assertThat(handled).isEmpty();
+        assertThat(duplicates("store")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldAlwaysHandleEventWithoutId() {
+        List<String> handled = new ArrayList<>();
+
+        consumer.handle(null, "a", handled::add);
+        consumer.handle(null, "a", handled::add);
+
+        assertThat(handled).containsExactly("a", "a");
+        verifyNoInteractions(store);
+    }
+
+    @Test
+    void shouldNotCacheEventWhoseHandlerFailed() {
+        when(store.insertNew(List.of("e-1"))).thenReturn(Set.of("e-1"));
+
+        assertThatThrownBy(() -> consumer.handle("e-1", "event", event -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        List<String> handled = new ArrayList<>();
+        consumer.handle("e-1", "retry", handled::add);
+
+        // The failed id never reached the cache, so the retry is decided by the store
+        assertThat(handled).containsExactly("retry");
+        verify(store, times(2)).insertNew(List.of("e-1"));
+    }
+
+    @Test
+    void shouldHandleFreshEventsOfPollInOrderWithOneInsert() {
+        List<List<String>> calls = new ArrayList<>();
+        when(store.insertNew(Set.of("e-1", "e-2", "e-3"))).thenReturn(Set.of("e-1", "e-3"));
+
+        consumer.handleAll(
+                Arrays.asList("e-1", "e-2", null, "e-3", "e-1"),
+                List.of("a", "b", "legacy", "c", "a-again"),
+                calls::add);
+
+        assertThat(calls).containsExactly(List.of("a", "legacy", "c"));
+        verify(store, times(1)).insertNew(Set.of("e-1", "e-2", "e-3"));
+        assertThat(duplicates("store")).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldNotCallBulkHandlerWhenWholePollWasSeen() {
+        when(store.insertNew(List.of("e-1"))).thenReturn(Set.of("e-1"));
+        consumer.handle("e-1", "a", event -> { });
+        List<List<String>> calls = new ArrayList<>();
+
+        consumer.handleAll(List.of("e-1"), List.of("a"), calls::add);
+
+        assertThat(calls).isEmpty();
+        verifyNoMoreInteractions(store);
+        assertThat(duplicates("cache")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldReadEventIdsFromConvertedBatchHeaders() {
+        Map<String, Object> withId = Map.of(EventEnvelope.EVENT_ID, "e-1".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> withoutId = new HashMap<>();
+
+        assertThat(IdempotentConsumer.eventIds(List.of(withId, withoutId)))
+                .containsExactly("e-1", null);
+        assertThat(IdempotentConsumer.eventIds(null)).isEmpty();
+    }
+
+    private double duplicates(String source) {
+        return meterRegistry.get("idempotency.duplicates").tag("source", source).counter().count();
+    }
+}
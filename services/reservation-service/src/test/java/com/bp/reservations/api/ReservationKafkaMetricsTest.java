@@ -0,0 +1,174 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.EventEnvelope;
+import com.bp.common.kafka.ErrorHandlerRetryMetrics;
+import com.bp.common.kafka.KafkaMetricsConfiguration;
+import com.bp.common.kafka.KafkaMetricsProperties;
+import com.bp.common.kafka.PollToCommitInterceptor;
+import com.bp.common.kafka.RetryTopicRouter;
+import com.bp.common.outbox.OutboxKafkaSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReservationKafkaMetricsTest {
+
+    private static final String TOPIC = "payment-service.payment-confirmed";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldTimeFromFirstUncommittedPollToCommit() {
+        PollToCommitInterceptor interceptor = new PollToCommitInterceptor();
+        interceptor.configure(Map.of(
+                ConsumerConfig.GROUP_ID_CONFIG, "reservation-service-group",
+                PollToCommitInterceptor.METER_REGISTRY, meterRegistry));
+
+        interceptor.onConsume(records(PARTITION_0, PARTITION_1));
+        interceptor.onConsume(records(PARTITION_0));
+        interceptor.onCommit(Map.of(PARTITION_0, new OffsetAndMetadata(2L)));
+        interceptor.onCommit(Map.of(PARTITION_0, new OffsetAndMetadata(2L)));
+
+        Timer timer = meterRegistry.get("kafka.consumer.poll.to.commit")
+                .tag("group", "reservation-service-group")
+                .tag("topic", TOPIC)
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+
+        interceptor.onCommit(Map.of(PARTITION_1, new OffsetAndMetadata(1L)));
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDoNothingWithoutMeterRegistry() {
+        PollToCommitInterceptor interceptor = new PollToCommitInterceptor();
+        interceptor.configure(Map.of(ConsumerConfig.GROUP_ID_CONFIG, "reservation-service-group"));
+
+        ConsumerRecords<Object, Object> records = records(PARTITION_0);
+
+        assertThat(interceptor.onConsume(records)).isSameAs(records);
+        interceptor.onCommit(Map.of(PARTITION_0, new OffsetAndMetadata(1L)));
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    void shouldCountErrorHandlerOutcomesPerTopic() {
+        ErrorHandlerRetryMetrics metrics = new ErrorHandlerRetryMetrics(meterRegistry);
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>(TOPIC, 0, 0L, "10", "value");
+
+        metrics.failedDelivery(record, new IllegalStateException(), 1);
+        metrics.failedDelivery(records(PARTITION_0, PARTITION_1), new IllegalStateException(), 1);
+        metrics.recovered(record, new IllegalStateException());
+
+        assertThat(count("failed")).isEqualTo(2);
+        assertThat(count("recovered")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagRoutedRecordsWithTheirMainTopic() {
+        RetryTopicRouter router = new RetryTopicRouter("reservation-service",
+                List.of(Duration.ofSeconds(1)), "reservation-service.dlt", meterRegistry);
+        ConsumerRecord<String, Object> retried = new ConsumerRecord<>("reservation-service.retry-1s", 0, 0L, "10", "value");
+        retried.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, TOPIC.getBytes(StandardCharsets.UTF_8));
+
+        router.destinationFor(new ConsumerRecord<>(TOPIC, 0, 0L, "10", "value"), new IllegalStateException());
+        router.destinationFor(retried, new IllegalStateException());
+
+        assertThat(meterRegistry.get("kafka.retry.routed").tag("tier", "1s").tag("topic", TOPIC).counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.retry.routed").tag("tier", "dlt").tag("topic", TOPIC).counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishSloBucketsForKafkaTimersOnly() {
+        KafkaMetricsProperties properties = new KafkaMetricsProperties();
+        properties.setSlo(List.of(Duration.ofMillis(10), Duration.ofMillis(100)));
+        meterRegistry.config().meterFilter(new KafkaMetricsConfiguration().kafkaSloMeterFilter(properties));
+
+        Timer listener = Timer.builder("spring.kafka.listener").tag("name", "reservation-payment-results-0")
+                .register(meterRegistry);
+        Timer other = Timer.builder("http.server.requests").register(meterRegistry);
+        listener.record(Duration.ofMillis(50));
+
+        assertThat(listener.takeSnapshot().histogramCounts()).hasSize(2);
+        assertThat(listener.takeSnapshot().histogramCounts()[1].count()).isEqualTo(1);
+        assertThat(other.takeSnapshot().histogramCounts()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldTimeOutboxSends() throws Exception {
+        DefaultKafkaProducerFactory<String, Object> producerFactory = mock(DefaultKafkaProducerFactory.class);
+        Producer<String, Object> producer = mock(Producer.class);
+        when(producerFactory.copyWithConfigurationOverride(any())).thenReturn(producerFactory);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        RecordMetadata metadata = new RecordMetadata(PARTITION_0, 0L, 0, 0L, 0, 0);
+        when(producer.send(any(), any())).thenAnswer(invocation -> {
+            invocation.<Callback>getArgument(1).onCompletion(metadata, null);
+            return CompletableFuture.completedFuture(metadata);
+        });
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.refresh();
+        OutboxKafkaSender sender = new OutboxKafkaSender(new KafkaTemplate<>(producerFactory));
+        sender.setApplicationContext(context);
+        sender.afterSingletonsInstantiated();
+
+        sender.send(TOPIC, "10", "com.bp.common.events.PaymentConfirmedEvent",
+                "{}".getBytes(StandardCharsets.UTF_8), new EventEnvelope("id-1", "10", null, null, null)).get();
+
+        assertThat(meterRegistry.get("spring.kafka.template")
+                .tag("name", OutboxKafkaSender.TEMPLATE_NAME)
+                .tag("result", "success")
+                .timer().count()).isEqualTo(1);
+        context.close();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("kafka.error.handler").tag("topic", TOPIC).tag("outcome", outcome).counter().count();
+    }
+
+    private static ConsumerRecords<Object, Object> records(TopicPartition... partitions) {
+        Map<TopicPartition, List<ConsumerRecord<Object, Object>>> byPartition = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            byPartition.put(partition, List.of(
+                    new ConsumerRecord<>(partition.topic(), partition.partition(), 0L, "10", "value")));
+        }
+        return new ConsumerRecords<>(byPartition);
+    }
+}
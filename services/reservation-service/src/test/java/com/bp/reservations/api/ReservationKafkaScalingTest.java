@@ -0,0 +1,99 @@
+package com.bp.reservations.api;
+
+import com.bp.common.kafka.ConsumerPartitionCheck;
+import com.bp.common.kafka.KafkaScalingProperties;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationKafkaScalingTest {
+
+    private static final String CONFIRMED = "payment-service.payment-confirmed";
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private KafkaAdmin kafkaAdmin;
+
+    @Mock
+    private ConcurrentMessageListenerContainer<Object, Object> container;
+
+    private KafkaScalingProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KafkaScalingProperties();
+        properties.getPartitions().put("payment-confirmed", 6);
+        properties.getPartitions().put("payment-failed", 12);
+    }
+
+    @Test
+    void shouldSpreadPartitionsOverInstances() {
+        properties.setInstances(3);
+
+        assertThat(properties.partitionsFor("reservation-created")).isEqualTo(6);
+        assertThat(properties.concurrencyFor("payment-confirmed")).isEqualTo(2);
+        assertThat(properties.concurrencyFor("payment-confirmed", "payment-failed")).isEqualTo(4);
+    }
+
+    @Test
+    void shouldKeepAtLeastOneConsumerWhenInstancesOutnumberPartitions() {
+        properties.setInstances(8);
+
+        assertThat(properties.concurrencyFor("payment-confirmed")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWarnWhenGroupConsumersOutnumberPartitions() {
+        properties.setInstances(2);
+        runningContainer(4, CONFIRMED);
+        when(kafkaAdmin.describeTopics(CONFIRMED)).thenReturn(Map.of(CONFIRMED, topic(CONFIRMED, 6)));
+
+        List<String> warnings = new ConsumerPartitionCheck(listenerRegistry, kafkaAdmin, properties).findOversubscribed();
+
+        assertThat(warnings).singleElement().asString()
+                .contains("reservation-service-group", CONFIRMED, "8 consumers", "6 partitions");
+    }
+
+    @Test
+    void shouldNotWarnWhenPartitionsCoverConsumers() {
+        properties.setInstances(2);
+        runningContainer(3, CONFIRMED);
+        when(kafkaAdmin.describeTopics(CONFIRMED)).thenReturn(Map.of(CONFIRMED, topic(CONFIRMED, 6)));
+
+        assertThat(new ConsumerPartitionCheck(listenerRegistry, kafkaAdmin, properties).findOversubscribed()).isEmpty();
+    }
+
+    private void runningContainer(int concurrency, String... topics) {
+        when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        when(container.isRunning()).thenReturn(true);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties(topics));
+        when(container.getConcurrency()).thenReturn(concurrency);
+        when(container.getGroupId()).thenReturn("reservation-service-group");
+    }
+
+    private TopicDescription topic(String name, int partitions) {
+        Node node = new Node(1, "kafka", 9092);
+        return new TopicDescription(name, false, IntStream.range(0, partitions)
+                .mapToObj(p -> new TopicPartitionInfo(p, node, List.of(node), List.of(node)))
+                .toList());
+    }
+}
@@ -0,0 +1,80 @@
+package com.bp.reservations.api;
+
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationKeyOrderedBatchProcessorTest {
+
+    private KeyOrderedBatchProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new KeyOrderedBatchProcessor(true, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.destroy();
+    }
+
+    @Test
+    void shouldKeepOrderPerKeyWhileOtherKeysRunAhead() {
+        CountDownLatch otherKeyDone = new CountDownLatch(1);
+        Queue<String> processed = new ConcurrentLinkedQueue<>();
+
+        processor.process(List.of("10-a", "11-a", "10-b"), List.of("10", "11", "10"), record -> {
+            if (record.equals("10-a")) {
+                // Blocks until key 11 has finished: only possible if it is not queued behind key 10
+                await(otherKeyDone);
+            }
+            processed.add(record);
+            if (record.startsWith("11")) {
+                otherKeyDone.countDown();
+            }
+        });
+
+        assertThat(processed).containsExactly("11-a", "10-a", "10-b");
+    }
+
+    @Test
+    void shouldReportLowestFailedPositionAndStopThatKey() {
+        Queue<String> processed = new ConcurrentLinkedQueue<>();
+
+        assertThatThrownBy(() -> processor.process(
+                List.of("10-a", "11-a", "11-b", "12-a", "10-b"),
+                List.of("10", "11", "11", "12", "10"),
+                record -> {
+                    if (record.equals("11-a") || record.equals("10-b")) {
+                        throw new IllegalStateException("failed " + record);
+                    }
+                    processed.add(record);
+                }))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(1);
+                    assertThat(e.getCause()).hasMessage("failed 11-a");
+                });
+
+        assertThat(processed).containsExactlyInAnyOrder("10-a", "12-a");
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.bp.reservations.api;
+
+import com.bp.common.outbox.OutboxDispatchLanes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReservationOutboxDispatchLanesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatchLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lanes = new OutboxDispatchLanes(4, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.destroy();
+    }
+
+    @Test
+    void shouldRunSameKeyOnOneLaneInSubmissionOrder() {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            futures.add(lanes.submit("reservation-10", () -> {
+                seen.add(n);
+                threads.add(Thread.currentThread().getName());
+                return n;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(50, seen.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, seen.get(i));
+        }
+        assertEquals(1, threads.stream().distinct().count());
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenTaskThrows() {
+        CompletableFuture<Object> future = lanes.submit("k", () -> {
+            throw new IllegalStateException("send rejected");
+        });
+
+        assertThrows(Exception.class, future::join);
+    }
+
+    @Test
+    void shouldRegisterQueueDepthGaugePerLane() {
+        assertEquals(4, meterRegistry.find("outbox.lane.queue.depth").gauges().size());
+    }
+}
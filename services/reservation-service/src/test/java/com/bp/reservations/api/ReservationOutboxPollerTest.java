@@ -0,0 +1,127 @@
+package com.bp.reservations.api;
+
+import com.bp.common.outbox.OutboxPoller;
+import com.bp.common.outbox.OutboxPublisher;
+import com.bp.reservations.service.OutboxEventStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationOutboxPollerTest {
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Mock
+    private OutboxEventStore outboxEventStore;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        poller = new OutboxPoller(outboxPublisher, outboxEventStore, meterRegistry, 100, 50, 1000, 15000);
+    }
+
+    @Test
+    void shouldRepollImmediatelyWhileBatchesAreFull() {
+        when(outboxPublisher.publishOutboxEvents()).thenReturn(100);
+
+        assertEquals(0, poller.pollOnce());
+        assertEquals(0, meterRegistry.get("outbox.poll.interval").gauge().value());
+    }
+
+    @Test
+    void shouldUseMinDelayAfterPartialBatch() {
+        when(outboxPublisher.publishOutboxEvents()).thenReturn(30);
+
+        assertEquals(50, poller.pollOnce());
+    }
+
+    @Test
+    void shouldBackOffStepByStepUpToMaxIdleDelayWhenEmpty() {
+        when(outboxPublisher.publishOutboxEvents()).thenReturn(0);
+
+        assertEquals(50, poller.pollOnce());
+        assertEquals(100, poller.pollOnce());
+        assertEquals(200, poller.pollOnce());
+        assertEquals(400, poller.pollOnce());
+        assertEquals(800, poller.pollOnce());
+        assertEquals(1000, poller.pollOnce());
+        assertEquals(1000, poller.pollOnce());
+    }
+
+    @Test
+    void shouldResetDelayAsSoonAsWorkArrives() {
+        when(outboxPublisher.publishOutboxEvents()).thenReturn(0, 0, 0, 100);
+
+        poller.pollOnce();
+        poller.pollOnce();
+        poller.pollOnce();
+
+        assertEquals(0, poller.pollOnce());
+    }
+
+    @Test
+    void shouldPollAgainAfterStopAndStart() {
+        OutboxPoller restartable = new OutboxPoller(outboxPublisher, outboxEventStore, meterRegistry, 100, 10, 20, 15000);
+        try {
+            restartable.start();
+            restartable.stop();
+            clearInvocations(outboxPublisher);
+
+            restartable.start();
+
+            verify(outboxPublisher, timeout(2000).atLeastOnce()).publishOutboxEvents();
+        } finally {
+            restartable.stop();
+        }
+    }
+
+    @Test
+    void shouldKeepPollingAfterPollThrowsError() {
+        when(outboxPublisher.publishOutboxEvents()).thenThrow(new AssertionError("boom")).thenReturn(0);
+        OutboxPoller erring = new OutboxPoller(outboxPublisher, outboxEventStore, meterRegistry, 100, 10, 20, 15000);
+        try {
+            erring.start();
+
+            verify(outboxPublisher, timeout(2000).atLeast(2)).publishOutboxEvents();
+        } finally {
+            erring.stop();
+        }
+    }
+
+    @Test
+    void shouldExposeBacklogGaugeFromLastRefresh() {
+        when(outboxEventStore.countPending()).thenReturn(42L);
+
+        poller.refreshBacklog();
+
+        assertEquals(42, meterRegistry.get("outbox.backlog").gauge().value());
+    }
+
+    @Test
+    void shouldNotQueryStoreWhenBacklogGaugeIsScraped() {
+        meterRegistry.get("outbox.backlog").gauge().value();
+
+        verifyNoInteractions(outboxEventStore);
+    }
+
+    @Test
+    void shouldKeepLastBacklogWhenRefreshFails() {
+        when(outboxEventStore.countPending()).thenReturn(42L).thenThrow(new IllegalStateException("db down"));
+
+        poller.refreshBacklog();
+        poller.refreshBacklog();
+
+        assertEquals(42, meterRegistry.get("outbox.backlog").gauge().value());
+    }
+}
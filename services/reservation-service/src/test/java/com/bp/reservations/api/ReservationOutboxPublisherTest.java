@@ -1,125 +1,304 @@
 package com.bp.reservations.api;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.ReservationCreatedEvent;
+import com.bp.common.events.codec.BinaryEventCodec;
+import com.bp.common.events.codec.EventContentType;
+import com.bp.common.outbox.OutboxDispatchLanes;
+import com.bp.common.outbox.OutboxEventTypeRegistry;
+import com.bp.common.outbox.OutboxKafkaSender;
+import com.bp.common.outbox.OutboxProperties;
+import com.bp.common.outbox.OutboxPublisher;
+import com.bp.common.outbox.OutboxTopicRouter;
 import com.bp.reservations.entity.OutboxEvent;
 import com.bp.reservations.entity.OutboxEventStatus;
-import com.bp.reservations.kafka.OutboxEventPublisher;
-import com.bp.reservations.kafka.ReservationProducer;
-import com.bp.reservations.repository.OutboxEventRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.bp.reservations.service.OutboxEventStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.SendResult;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
-import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(MockitoExtension.class)
 class ReservationOutboxPublisherTest {
 
-    @Mock
-    private OutboxEventRepository outboxEventRepository;
+    private static final String TOPIC = "reservation-created";
+    private static final String TYPE_ID = ReservationCreatedEvent.class.getName();
 
     @Mock
-    private ReservationProducer reservationProducer;
+    private OutboxEventStore outboxEventStore;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private OutboxKafkaSender sender;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatchLanes dispatchLanes;
+    private OutboxProperties properties;
+    private OutboxPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatchLanes = new OutboxDispatchLanes(2, meterRegistry);
+
+        properties = new OutboxProperties();
+        properties.setInstanceId("test-instance");
+        properties.setEventSource("reservation-service");
+
+        OutboxEventTypeRegistry eventTypes = new OutboxEventTypeRegistry()
+                .register(ReservationCreatedEvent.class, TOPIC, event -> String.valueOf(event.reservationId()));
+
+        publisher = new OutboxPublisher(outboxEventStore, eventTypes, OutboxTopicRouter.byEventType(),
+                sender, dispatchLanes, new ObjectMapper().findAndRegisterModules(), properties, meterRegistry);
+    }
 
-    @InjectMocks
-    private OutboxEventPublisher publisher;
+    @AfterEach
+    void tearDown() {
+        dispatchLanes.destroy();
+    }
 
     @Test
-    void shouldPublishOutboxEventAndMarkAsSent() throws Exception {
-        OutboxEvent event = OutboxEvent.builder()
-                .id(1L)
-                .aggregateType("Reservation")
-                .aggregateId(10L)
-                .eventType(ReservationCreatedEvent.class.getSimpleName())
-                .payload("{json}")
-                .status(OutboxEventStatus.NEW)
-                .build();
+    void shouldPublishStoredPayloadAsIsAndMarkAsSent() {
+        OutboxEvent event = outboxEvent(1L, 10L, "{json}");
 
-        when(outboxEventRepository.findByStatus(OutboxEventStatus.NEW))
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
                 .thenReturn(List.of(event));
 
-        ReservationCreatedEvent domainEvent =
-                new ReservationCreatedEvent(
-                        10L,
-                        1L,
-                        5L,
-                        LocalDateTime.now(),
-                        LocalDateTime.now().plusHours(2)
-                );
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishOutboxEvents();
+
+        verify(sender).send(eq(TOPIC), eq("10"), eq(TYPE_ID),
+                eq("{json}".getBytes(StandardCharsets.UTF_8)), any(EventEnvelope.class));
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of()));
+    }
+
+    @Test
+    void shouldReencodeEventsForBinaryTopics() {
+        properties.getBinaryTopics().add(TOPIC);
+        ReservationCreatedEvent created = new ReservationCreatedEvent(10L, 1L, 2L,
+                LocalDateTime.of(2026, 10, 17, 10, 0), LocalDateTime.of(2026, 10, 17, 11, 0));
+        OutboxEvent event = outboxEvent(1L, 10L,
+                "{\"reservationId\":10,\"userId\":1,\"resourceId\":2,"
+                        + "\"from\":\"2026-10-17T10:00:00\",\"to\":\"2026-10-17T11:00:00\"}");
 
-        when(objectMapper.readValue(eq("{json}"), eq(ReservationCreatedEvent.class)))
-                .thenReturn(domainEvent);
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
 
-        when(reservationProducer.sendReservationCreatedEvent(domainEvent))
+        when(sender.sendEncoded(eq(TOPIC), eq("10"), eq(EventContentType.BINARY),
+                any(byte[].class), any(EventEnvelope.class)))
                 .thenReturn(CompletableFuture.completedFuture(null));
 
         publisher.publishOutboxEvents();
 
-        verify(reservationProducer).sendReservationCreatedEvent(domainEvent);
+        verify(sender).sendEncoded(eq(TOPIC), eq("10"), eq(EventContentType.BINARY),
+                eq(BinaryEventCodec.encode(created)), any(EventEnvelope.class));
+        verify(sender, never()).send(any(), any(), any(), any(), any());
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of()));
+    }
 
-        verify(outboxEventRepository).saveAll(argThat(saved -> {
-            List<OutboxEvent> list = (List<OutboxEvent>) saved;
-            return list.size() == 1
-                    && list.get(0).getId().equals(1L)
-                    && list.get(0).getStatus() == OutboxEventStatus.SENT;
-        }));
+    @Test
+    void shouldStampEnvelopeWithStableEventIdAndOutboxTimes() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 17, 10, 0);
+        OutboxEvent event = outboxEvent(1L, 10L, "{json}");
+        event.setCreatedAt(createdAt);
 
-        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.SENT);
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
+        when(outboxEventStore.claimDueRetries(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
+
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishOutboxEvents();
+        publisher.retryFailedEvents();
+
+        ArgumentCaptor<EventEnvelope> envelopes = ArgumentCaptor.forClass(EventEnvelope.class);
+        verify(sender, times(2)).send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), envelopes.capture());
+
+        EventEnvelope first = envelopes.getAllValues().get(0);
+        assertNotNull(first.eventId());
+        assertEquals(first.eventId(), envelopes.getAllValues().get(1).eventId());
+        assertEquals("10", first.correlationId());
+        Instant enqueuedAt = createdAt.atZone(ZoneId.systemDefault()).toInstant();
+        assertEquals(enqueuedAt, first.enqueuedAt());
+        assertEquals(enqueuedAt, first.occurredAt());
+        assertNull(first.publishedAt());
     }
 
     @Test
-    void shouldMarkEventAsFailedWhenJsonCannotBeDeserialized() throws Exception {
-        OutboxEvent event = OutboxEvent.builder()
-                .id(1L)
-                .aggregateType("Reservation")
-                .aggregateId(10L)
-                .eventType(ReservationCreatedEvent.class.getSimpleName())
-                .payload("{broken-json}")
-                .status(OutboxEventStatus.NEW)
-                .build();
+    void shouldMarkEventAsFailedWhenTypeIsUnsupported() {
+        OutboxEvent event = outboxEvent(1L, 10L, "{json}");
+        event.setEventType("SomethingElse");
+
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
+
+        publisher.publishOutboxEvents();
+
+        verifyNoInteractions(sender);
+        verify(outboxEventStore).recordResults(any(), eq(List.of()), eq(List.of(1L)));
+    }
+
+    @Test
+    void shouldDeriveKeyFromEventWhenMessageKeyIsMissing() {
+        OutboxEvent event = outboxEvent(1L, 10L, "{\"reservationId\":10}");
+        event.setMessageKey(null);
+
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
+
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishOutboxEvents();
+
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of()));
+    }
 
-        when(outboxEventRepository.findByStatus(OutboxEventStatus.NEW))
+    @Test
+    void shouldResolveTypeStoredByFullyQualifiedName() {
+        OutboxEvent event = outboxEvent(1L, 10L, "{json}");
+        event.setEventType(TYPE_ID);
+
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
                 .thenReturn(List.of(event));
 
-        when(objectMapper.readValue(anyString(), eq(ReservationCreatedEvent.class)))
-                .thenThrow(new JsonProcessingException("boom") {});
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishOutboxEvents();
+
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of()));
+    }
+
+    @Test
+    void shouldMarkEachEventFromItsOwnAckInPipelinedBatch() {
+        OutboxEvent ok = outboxEvent(1L, 10L, "{ok}");
+        OutboxEvent broken = outboxEvent(2L, 11L, "{broken}");
+
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(ok, broken));
+
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(sender.send(eq(TOPIC), eq("11"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        publisher.publishOutboxEvents();
+
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of(2L)));
+        assertEquals(1, meterRegistry.get("outbox.events.sent").counter().count());
+        assertEquals(1, meterRegistry.get("outbox.events.failed").counter().count());
+    }
+
+    @Test
+    void shouldNotSendRowsFailedAtDeadlineAndRecordLateAcks() throws Exception {
+        properties.setBatchSendTimeoutMs(100);
+        OutboxEvent slow = outboxEvent(1L, 10L, "{slow}");
+        OutboxEvent queued = outboxEvent(2L, 10L, "{queued}");
+        CountDownLatch brokerStalled = new CountDownLatch(1);
+        CompletableFuture<SendResult<String, byte[]>> pendingAck = new CompletableFuture<>();
+
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(slow, queued), List.of());
+        when(sender.send(eq(TOPIC), eq("10"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenAnswer(invocation -> {
+                    brokerStalled.await();
+                    return pendingAck;
+                });
 
         publisher.publishOutboxEvents();
 
-        verifyNoInteractions(reservationProducer);
+        // The queued row is failed for the retry sweep; the one in the producer stays claimed
+        verify(outboxEventStore).recordResults(any(), eq(List.of()), eq(List.of(2L)));
 
-        verify(outboxEventRepository).saveAll(argThat(saved -> {
-            List<OutboxEvent> list = (List<OutboxEvent>) saved;
-            return list.size() == 1
-                    && list.get(0).getId().equals(1L)
-                    && list.get(0).getStatus() == OutboxEventStatus.FAILED;
-        }));
+        brokerStalled.countDown();
+        dispatchLanes.submit("10", () -> null).get(5, TimeUnit.SECONDS);
+        pendingAck.complete(null);
+        publisher.publishOutboxEvents();
 
-        assertThat(event.getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+        verify(sender, times(1)).send(any(), any(), any(), any(byte[].class), any(EventEnvelope.class));
+        verify(outboxEventStore).recordResults(any(), eq(List.of(1L)), eq(List.of()));
+        assertEquals(1, meterRegistry.get("outbox.events.sent").counter().count());
+    }
+
+    @Test
+    void shouldPublishClaimedEventsOnFastPath() {
+        OutboxEvent event = outboxEvent(3L, 12L, "{json}");
+
+        when(outboxEventStore.claimByIds(eq(List.of(3L)), any(), any(Duration.class)))
+                .thenReturn(List.of(event));
+
+        when(sender.send(eq(TOPIC), eq("12"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishNow(List.of(3L));
+
+        verify(outboxEventStore).recordResults(any(), eq(List.of(3L)), eq(List.of()));
+    }
+
+    @Test
+    void shouldRedriveDueFailedEvents() {
+        OutboxEvent event = outboxEvent(4L, 13L, "{json}");
+        event.setStatus(OutboxEventStatus.FAILED);
+        event.setAttempts(2);
+
+        when(outboxEventStore.claimDueRetries(any(), any(Duration.class), anyInt()))
+                .thenReturn(List.of(event));
+
+        when(sender.send(eq(TOPIC), eq("13"), eq(TYPE_ID), any(byte[].class), any(EventEnvelope.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.retryFailedEvents();
+
+        verify(outboxEventStore).recordResults(any(), eq(List.of(4L)), eq(List.of()));
     }
 
     @Test
     void shouldDoNothingWhenNoNewEvents() {
-        when(outboxEventRepository.findByStatus(OutboxEventStatus.NEW))
+        when(outboxEventStore.claimNextBatch(any(), any(Duration.class), anyInt()))
                 .thenReturn(List.of());
 
         publisher.publishOutboxEvents();
 
-        verify(outboxEventRepository).findByStatus(OutboxEventStatus.NEW);
-        verifyNoInteractions(reservationProducer);
-        verify(outboxEventRepository, never()).saveAll(any());
+        verify(outboxEventStore).claimNextBatch(any(), any(Duration.class), anyInt());
+        verifyNoInteractions(sender);
+        verify(outboxEventStore, never()).recordResults(any(), any(), any());
+    }
+
+    private OutboxEvent outboxEvent(Long id, Long reservationId, String payload) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateType("Reservation")
+                .aggregateId(reservationId)
+                .eventType(ReservationCreatedEvent.class.getSimpleName())
+                .payload(payload)
+                .messageKey(String.valueOf(reservationId))
+                .status(OutboxEventStatus.NEW)
+                .build();
     }
 }
@@ -0,0 +1,52 @@
+package com.bp.reservations.api;
+
+import com.bp.common.outbox.OutboxRetentionJob;
+import com.bp.reservations.service.OutboxEventStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationOutboxRetentionJobTest {
+
+    @Mock
+    private OutboxEventStore outboxEventStore;
+
+    @Test
+    void shouldPurgeChunksUntilOneComesBackShort() {
+        OutboxRetentionJob job = new OutboxRetentionJob(outboxEventStore, true, 168, 100, 10);
+
+        when(outboxEventStore.purgeSentBefore(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100, 100, 40);
+
+        assertEquals(240, job.purgeSentEvents());
+        verify(outboxEventStore, times(3)).purgeSentBefore(any(LocalDateTime.class), eq(100));
+    }
+
+    @Test
+    void shouldStopAfterMaxChunksPerRun() {
+        OutboxRetentionJob job = new OutboxRetentionJob(outboxEventStore, true, 168, 100, 2);
+
+        when(outboxEventStore.purgeSentBefore(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100);
+
+        assertEquals(200, job.purgeSentEvents());
+        verify(outboxEventStore, times(2)).purgeSentBefore(any(LocalDateTime.class), eq(100));
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        OutboxRetentionJob job = new OutboxRetentionJob(outboxEventStore, false, 168, 100, 10);
+
+        assertEquals(0, job.purgeSentEvents());
+        verifyNoInteractions(outboxEventStore);
+    }
+}
@@ -1,18 +1,38 @@
 package com.bp.reservations.api;
 
+import com.bp.common.events.EventEnvelope;
 import com.bp.common.events.PaymentConfirmedEvent;
 import com.bp.common.events.PaymentFailedEvent;
 import com.bp.common.events.PaymentStatus;
+import com.bp.common.idempotency.IdempotentConsumer;
+import com.bp.common.idempotency.ProcessedEventStore;
+import com.bp.common.kafka.KeyOrderedBatchProcessor;
 import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.exception.EntityNotFoundException;
 import com.bp.reservations.kafka.PaymentStatusListener;
 import com.bp.reservations.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaNull;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.transaction.support.TransactionOperations;
 
-import static org.mockito.Mockito.verify;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ReservationPaymentListenerTest {
@@ -20,9 +40,23 @@ class ReservationPaymentListenerTest {
     @Mock
     private ReservationService reservationService;
 
+    @Spy
+    private KeyOrderedBatchProcessor keyOrderedProcessor = new KeyOrderedBatchProcessor(false, 2);
+
+    private final ProcessedEventStore processedEventStore = mock(ProcessedEventStore.class);
+
+    @Spy
+    private IdempotentConsumer idempotentConsumer = new IdempotentConsumer(
+            processedEventStore, TransactionOperations.withoutTransaction(), 100, new SimpleMeterRegistry());
+
     @InjectMocks
     private PaymentStatusListener listener;
 
+    @AfterEach
+    void tearDown() {
+        keyOrderedProcessor.destroy();
+    }
+
     @Test
     void shouldHandlePaymentConfirmedEvent() {
         var event = new PaymentConfirmedEvent(
@@ -31,7 +65,7 @@ class ReservationPaymentListenerTest {
                 PaymentStatus.CONFIRMED
         );
 
-        listener.onPaymentConfirmed(event);
+        listener.onPaymentConfirmed(event, null);
 
         verify(reservationService)
                 .updateReservationStatus(10L, PaymentStatus.CONFIRMED);
@@ -45,9 +79,76 @@ class ReservationPaymentListenerTest {
                 "Not enough funds"
         );
 
-        listener.onPaymentFailed(event);
+        listener.onPaymentFailed(event, null);
 
         verify(reservationService)
                 .updateReservationStatus(10L, PaymentStatus.FAILED);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldApplyOnlyFinalStatusPerReservationInBatch() {
+        var confirmed = new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED);
+        var failedThenConfirmed = new PaymentFailedEvent(2L, 11L, "Not enough funds");
+        var retryConfirmed = new PaymentConfirmedEvent(3L, 11L, PaymentStatus.CONFIRMED);
+        var failed = new PaymentFailedEvent(4L, 12L, "Card expired");
+
+        listener.onPaymentResults(
+                List.of(confirmed, failedThenConfirmed, retryConfirmed, failed),
+                List.of("10", "11", "11", "12"),
+                List.of()
+        );
+
+        verify(reservationService).applyPaymentStatuses(Map.of(
+                10L, PaymentStatus.CONFIRMED,
+                11L, PaymentStatus.CONFIRMED,
+                12L, PaymentStatus.FAILED
+        ));
+        verifyNoMoreInteractions(reservationService);
+    }
+
+    @Test
+    void shouldReportFailingRecordIndexWhenBatchFails() {
+        var ok = new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED);
+        var missing = new PaymentFailedEvent(2L, 99L, "Not enough funds");
+
+        when(reservationService.applyPaymentStatuses(anyMap()))
+                .thenThrow(new EntityNotFoundException("Reservations with ids [99] not found"));
+        doNothing().when(reservationService).updateReservationStatus(10L, PaymentStatus.CONFIRMED);
+        doThrow(new EntityNotFoundException("Reservation with id 99 not found"))
+                .when(reservationService).updateReservationStatus(99L, PaymentStatus.FAILED);
+
+        assertThatThrownBy(() -> listener.onPaymentResults(List.of(ok, missing), List.of("10", "99"), List.of()))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                        e -> assertThat(e.getIndex()).isEqualTo(1));
+
+        verify(reservationService).updateReservationStatus(10L, PaymentStatus.CONFIRMED);
+    }
+
+    @Test
+    void shouldFailUndeserializableRecordAsConversionError() {
+        var ok = new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED);
+
+        assertThatThrownBy(() -> listener.onPaymentResults(List.of(ok, KafkaNull.INSTANCE), List.of("10", "11"), List.of()))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(1);
+                    assertThat(e).hasRootCauseInstanceOf(MessageConversionException.class);
+                });
+
+        verify(reservationService).updateReservationStatus(10L, PaymentStatus.CONFIRMED);
+    }
+
+    @Test
+    void shouldLeaveRedeliveredEventsOutOfFinalStatuses() {
+        var confirmed = new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED);
+        var staleFailure = new PaymentFailedEvent(2L, 10L, "Redelivered");
+
+        when(processedEventStore.insertNew(Set.of("e-1", "e-2"))).thenReturn(Set.of("e-1"));
+
+        listener.onPaymentResults(List.of(confirmed, staleFailure), List.of("10", "10"), List.of(
+                Map.of(EventEnvelope.EVENT_ID, "e-1".getBytes(StandardCharsets.UTF_8)),
+                Map.of(EventEnvelope.EVENT_ID, "e-2".getBytes(StandardCharsets.UTF_8))));
+
+        verify(reservationService).applyPaymentStatuses(Map.of(10L, PaymentStatus.CONFIRMED));
+        verifyNoMoreInteractions(reservationService);
+    }
+}
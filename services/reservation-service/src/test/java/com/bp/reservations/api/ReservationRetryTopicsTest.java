@@ -0,0 +1,191 @@
+package com.bp.reservations.api;
+
+import com.bp.common.events.PaymentConfirmedEvent;
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.events.codec.EventContentType;
+import com.bp.common.kafka.DeadLetterKafkaTemplates;
+import com.bp.common.kafka.KafkaRetryConfiguration;
+import com.bp.common.kafka.KafkaRetryProperties;
+import com.bp.common.kafka.RetryTierHandlers;
+import com.bp.common.kafka.RetryTierListener;
+import com.bp.common.kafka.RetryTopicRouter;
+import com.bp.reservations.exception.ReservationConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ReservationRetryTopicsTest {
+
+    private static final String MAIN = "payment-service.payment-confirmed";
+    private static final String DLT = "reservation.service.dlt";
+    private static final long NOW = 1_000_000L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RetryTopicRouter router;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        router = new RetryTopicRouter("reservation-service",
+                List.of(Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60)), DLT, meterRegistry);
+    }
+
+    @Test
+    void shouldMoveFailedRecordThroughTiersToDlt() {
+        assertThat(router.tiers()).extracting(RetryTopicRouter.Tier::topic).containsExactly(
+                "reservation-service.retry-1s", "reservation-service.retry-10s", "reservation-service.retry-60s");
+
+        assertThat(router.destinationFor(record(MAIN, 0L), new IllegalStateException()))
+                .isEqualTo(new TopicPartition("reservation-service.retry-1s", -1));
+        assertThat(router.destinationFor(record("reservation-service.retry-1s", 0L), new IllegalStateException()))
+                .isEqualTo(new TopicPartition("reservation-service.retry-10s", -1));
+        assertThat(router.destinationFor(record("reservation-service.retry-60s", 0L), new IllegalStateException()))
+                .isEqualTo(new TopicPartition(DLT, -1));
+
+        assertThat(meterRegistry.get("kafka.retry.routed").tag("tier", "1s").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.retry.routed").tag("tier", "dlt").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSendUnreadableRecordStraightToDlt() {
+        var failure = new IllegalStateException(new DeserializationException("bad json", new byte[0], false, null));
+
+        assertThat(router.destinationFor(record(MAIN, 0L), failure)).isEqualTo(new TopicPartition(DLT, -1));
+    }
+
+    @Test
+    void shouldSendConfiguredFatalFailureStraightToDlt() {
+        RetryTopicRouter fatalRouter = new RetryTopicRouter("reservation-service", List.of(Duration.ofSeconds(1)), DLT,
+                List.of(ReservationConflictException.class), meterRegistry);
+        var conflict = new IllegalStateException(new ReservationConflictException("Resource 1 is already booked"));
+
+        assertThat(fatalRouter.destinationFor(record(MAIN, 0L), conflict)).isEqualTo(new TopicPartition(DLT, -1));
+        assertThat(fatalRouter.destinationFor(record(MAIN, 0L), new IllegalStateException()))
+                .isEqualTo(new TopicPartition("reservation-service.retry-1s", -1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPublishUnreadableRecordToDltByteForByte() {
+        MockProducer<String, byte[]> bytesProducer =
+                new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        MockProducer<String, Object> jsonProducer =
+                new MockProducer<>(true, new StringSerializer(), new JsonSerializer<>());
+        DeadLetterKafkaTemplates templates = new DeadLetterKafkaTemplates(
+                new KafkaTemplate<>(factoryOf(bytesProducer)), new KafkaTemplate<>(factoryOf(jsonProducer)));
+        DefaultErrorHandler errorHandler = new KafkaRetryConfiguration().kafkaRetryErrorHandler(
+                templates, router, new KafkaRetryProperties(), mock(ObjectProvider.class));
+        byte[] poison = {0x01, (byte) 0xff, 0x7b, 0x00, 0x2a};
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(EventContentType.HEADER, EventContentType.headerValue(EventContentType.BINARY));
+        var cause = new DeserializationException("unknown tag", poison, false, new IllegalArgumentException());
+        SerializationUtils.deserializationException(headers, poison, cause, false);
+        ConsumerRecord<String, Object> unreadable = new ConsumerRecord<>(MAIN, 0, 0L, NOW, TimestampType.CREATE_TIME,
+                -1, poison.length, "10", null, headers, Optional.empty());
+
+        errorHandler.handleOne(new ListenerExecutionFailedException("listener failed", cause), unreadable,
+                mock(Consumer.class), mock(MessageListenerContainer.class));
+
+        assertThat(jsonProducer.history()).isEmpty();
+        assertThat(bytesProducer.history()).singleElement().satisfies(sent -> {
+            assertThat(sent.topic()).isEqualTo(DLT);
+            assertThat(sent.value()).containsExactly(poison);
+            assertThat(sent.headers().lastHeader(EventContentType.HEADER).value())
+                    .isEqualTo(EventContentType.headerValue(EventContentType.BINARY));
+        });
+    }
+
+    @Test
+    void shouldNackRecordUntilTierDelayHasPassed() {
+        List<Object> handled = new ArrayList<>();
+        RetryTierListener listener = listener(new RetryTierHandlers().register(MAIN, Object.class, handled::add));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        listener.onRetry(record("reservation-service.retry-10s", NOW - 4_000L), ack);
+
+        verify(ack).nack(Duration.ofMillis(6_000L));
+        verify(ack, never()).acknowledge();
+        assertThat(handled).isEmpty();
+    }
+
+    @Test
+    void shouldDispatchDueRecordToHandlerOfOriginalTopic() {
+        List<PaymentConfirmedEvent> handled = new ArrayList<>();
+        RetryTierListener listener = listener(new RetryTierHandlers()
+                .register(MAIN, PaymentConfirmedEvent.class, handled::add));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        listener.onRetry(record("reservation-service.retry-1s", NOW - 1_500L), ack);
+
+        assertThat(handled).containsExactly(new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void shouldRejectRetriedRecordOfUnexpectedType() {
+        RetryTierHandlers handlers = new RetryTierHandlers().register(MAIN, String.class, value -> { });
+
+        assertThatThrownBy(() -> handlers.dispatch(MAIN, new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED)))
+                .isInstanceOf(ClassCastException.class);
+        assertThat(router.tierOf(MAIN)).isEqualTo(Optional.empty());
+    }
+
+    private RetryTierListener listener(RetryTierHandlers handlers) {
+        return new RetryTierListener(router, handlers, Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+    }
+
+    private static <V> ProducerFactory<String, V> factoryOf(MockProducer<String, V> producer) {
+        return new ProducerFactory<>() {
+            @Override
+            public Producer<String, V> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public Map<String, Object> getConfigurationProperties() {
+                return Map.of();
+            }
+        };
+    }
+
+    private ConsumerRecord<String, Object> record(String topic, long timestamp) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, MAIN.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(topic, 0, 0L, timestamp, TimestampType.CREATE_TIME, -1, -1,
+                "10", new PaymentConfirmedEvent(1L, 10L, PaymentStatus.CONFIRMED), headers, Optional.empty());
+    }
+}
@@ -1,12 +1,22 @@
 package com.bp.reservations.api;
 
+import com.bp.common.events.PaymentStatus;
+import com.bp.common.outbox.OutboxEventSaved;
+import com.bp.reservations.api.dto.AvailabilityResponse;
 import com.bp.reservations.api.dto.CreateReservationRequest;
+import com.bp.reservations.api.dto.ReservationPage;
 import com.bp.reservations.api.dto.ReservationResponse;
 import com.bp.reservations.entity.OutboxEvent;
 import com.bp.reservations.entity.Reservation;
 import com.bp.reservations.entity.ReservationStatus;
+import com.bp.reservations.exception.EntityNotFoundException;
+import com.bp.reservations.exception.ReservationConflictException;
+import com.bp.reservations.repository.BookedSlot;
 import com.bp.reservations.repository.OutboxEventRepository;
+import com.bp.reservations.repository.ReservationFilter;
 import com.bp.reservations.repository.ReservationRepository;
+import com.bp.reservations.service.AvailabilityChanged;
+import com.bp.reservations.service.ReservationAvailabilityIndex;
 import com.bp.reservations.service.ReservationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,14 +25,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +54,12 @@ class ReservationServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ReservationAvailabilityIndex availabilityIndex;
+
     @InjectMocks
     private ReservationService reservationService;
 
@@ -77,6 +100,13 @@ class ReservationServiceTest {
         when(objectMapper.writeValueAsString(any()))
                 .thenReturn("{\"json\":\"payload\"}");
 
+        when(outboxEventRepository.save(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> {
+                    OutboxEvent saved = invocation.getArgument(0);
+                    saved.setId(7L);
+                    return saved;
+                });
+
         ReservationResponse response =
                 reservationService.createReservation(request);
 
@@ -84,7 +114,92 @@ class ReservationServiceTest {
         assertThat(response.status()).isEqualTo(ReservationStatus.CREATED);
 
         verify(reservationRepository).save(any(Reservation.class));
+        verify(reservationRepository).flush();
         verify(outboxEventRepository).save(any(OutboxEvent.class));
+        verify(eventPublisher).publishEvent(new OutboxEventSaved(List.of(7L)));
+        verify(eventPublisher).publishEvent(AvailabilityChanged.booked(reservation));
+    }
+
+    @Test
+    void shouldRejectOverlappingReservationWithConflict() {
+        CreateReservationRequest request =
+                new CreateReservationRequest(1L, 1L, FROM, TO);
+
+        when(reservationRepository.save(any(Reservation.class)))
+                .thenThrow(new DataIntegrityViolationException("insert failed",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isInstanceOf(ReservationConflictException.class);
+
+        verifyNoInteractions(outboxEventRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldRejectOverlapRaisedWhenTheInsertIsFlushed() {
+        CreateReservationRequest request =
+                new CreateReservationRequest(1L, 1L, FROM, TO);
+
+        when(reservationRepository.save(any(Reservation.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("could not execute batch",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")))
+                .when(reservationRepository).flush();
+
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isInstanceOf(ReservationConflictException.class);
+
+        verifyNoInteractions(outboxEventRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldRethrowOtherIntegrityViolations() {
+        CreateReservationRequest request =
+                new CreateReservationRequest(1L, 1L, FROM, TO);
+        var notNull = new DataIntegrityViolationException("insert failed",
+                new SQLException("null value in column violates not-null constraint", "23502"));
+
+        when(reservationRepository.save(any(Reservation.class))).thenThrow(notNull);
+
+        assertThatThrownBy(() -> reservationService.createReservation(request))
+                .isSameAs(notNull);
+    }
+
+    @Test
+    void shouldCreateReservationsInOneBatch() throws Exception {
+        List<CreateReservationRequest> requests = List.of(
+                new CreateReservationRequest(1L, 1L, FROM, TO),
+                new CreateReservationRequest(1L, 2L, FROM, TO));
+
+        when(reservationRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Reservation> saved = invocation.getArgument(0);
+                    for (int i = 0; i < saved.size(); i++) {
+                        saved.get(i).setId(i + 1L);
+                    }
+                    return saved;
+                });
+        when(objectMapper.writeValueAsString(any()))
+                .thenReturn("{\"json\":\"payload\"}");
+        when(outboxEventRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<OutboxEvent> saved = invocation.getArgument(0);
+                    for (int i = 0; i < saved.size(); i++) {
+                        saved.get(i).setId(i + 7L);
+                    }
+                    return saved;
+                });
+
+        List<ReservationResponse> responses = reservationService.createReservations(requests);
+
+        assertThat(responses).extracting(ReservationResponse::id).containsExactly(1L, 2L);
+        assertThat(responses).extracting(ReservationResponse::resourceId).containsExactly(1L, 2L);
+        var inOrder = inOrder(reservationRepository, outboxEventRepository);
+        inOrder.verify(reservationRepository).saveAll(anyList());
+        inOrder.verify(reservationRepository).flush();
+        inOrder.verify(outboxEventRepository).saveAll(anyList());
+        verify(eventPublisher).publishEvent(new OutboxEventSaved(List.of(7L, 8L)));
+        verify(eventPublisher).publishEvent(any(AvailabilityChanged.class));
     }
 
     // ---------- UPDATE STATUS ----------
@@ -101,8 +216,92 @@ class ReservationServiceTest {
         assertThat(reservation.getStatus()).isEqualTo(ReservationStatus.PAID);
     }
 
+    @Test
+    void shouldRejectStatusChangeBackToBookedSlotWithConflict() {
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        when(reservationRepository.findById(1L))
+                .thenReturn(Optional.of(reservation));
+        when(reservationRepository.saveAndFlush(reservation))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> reservationService.updateStatus(1L, ReservationStatus.CREATED))
+                .isInstanceOf(ReservationConflictException.class);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldRejectPaymentConfirmationForTakenSlotWithConflict() {
+        when(reservationRepository.findExistingIds(Set.of(10L)))
+                .thenReturn(Set.of(10L));
+        when(reservationRepository.findSlots(List.of(10L), Set.of(ReservationStatus.CANCELLED, ReservationStatus.PAYMENT_FAILED)))
+                .thenReturn(List.of(new BookedSlot(10L, 1L, FROM, TO)));
+        when(reservationRepository.updateStatusWhereDifferent(List.of(10L), ReservationStatus.PAID))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> reservationService.applyPaymentStatuses(Map.of(10L, PaymentStatus.CONFIRMED)))
+                .isInstanceOf(ReservationConflictException.class);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
     // ---------- GET BY ID ----------
 
+    @Test
+    void shouldApplyPaymentStatusesWithOneUpdatePerStatus() {
+        when(reservationRepository.findExistingIds(Set.of(10L, 11L, 12L)))
+                .thenReturn(Set.of(10L, 11L, 12L));
+        when(reservationRepository.updateStatusWhereDifferent(List.of(10L, 12L), ReservationStatus.PAID))
+                .thenReturn(2);
+        when(reservationRepository.updateStatusWhereDifferent(List.of(11L), ReservationStatus.PAYMENT_FAILED))
+                .thenReturn(0);
+
+        Map<Long, PaymentStatus> finalStatuses = new LinkedHashMap<>();
+        finalStatuses.put(10L, PaymentStatus.CONFIRMED);
+        finalStatuses.put(11L, PaymentStatus.FAILED);
+        finalStatuses.put(12L, PaymentStatus.CONFIRMED);
+
+        int updated = reservationService.applyPaymentStatuses(finalStatuses);
+
+        assertThat(updated).isEqualTo(2);
+        verify(reservationRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(AvailabilityChanged.released(List.of(11L)));
+    }
+
+    @Test
+    void shouldRebookSlotWhenPaymentConfirmedAfterFailure() {
+        BookedSlot slot = new BookedSlot(10L, 1L, FROM, TO);
+        when(reservationRepository.findExistingIds(Set.of(10L)))
+                .thenReturn(Set.of(10L));
+        when(reservationRepository.findSlots(List.of(10L), Set.of(ReservationStatus.CANCELLED, ReservationStatus.PAYMENT_FAILED)))
+                .thenReturn(List.of(slot));
+        when(reservationRepository.updateStatusWhereDifferent(List.of(10L), ReservationStatus.PAID))
+                .thenReturn(1);
+
+        int updated = reservationService.applyPaymentStatuses(Map.of(10L, PaymentStatus.CONFIRMED));
+
+        assertThat(updated).isEqualTo(1);
+        verify(eventPublisher).publishEvent(AvailabilityChanged.bookedSlots(List.of(slot)));
+    }
+
+    @Test
+    void shouldNotApplyPaymentStatusesWhenReservationMissing() {
+        when(reservationRepository.findExistingIds(Set.of(10L, 99L)))
+                .thenReturn(Set.of(10L));
+
+        Map<Long, PaymentStatus> finalStatuses = new LinkedHashMap<>();
+        finalStatuses.put(10L, PaymentStatus.CONFIRMED);
+        finalStatuses.put(99L, PaymentStatus.FAILED);
+
+        assertThatThrownBy(() -> reservationService.applyPaymentStatuses(finalStatuses))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("99");
+
+        verify(reservationRepository, never()).updateStatusWhereDifferent(any(), any());
+    }
+
     @Test
     void shouldGetReservationById() {
         when(reservationRepository.findById(1L))
@@ -119,27 +318,61 @@ class ReservationServiceTest {
 
     @Test
     void shouldGetReservationsByUser() {
-        when(reservationRepository.findByUserId(1L))
+        when(reservationRepository.findPage(ReservationFilter.byUser(1L), null, ReservationService.DEFAULT_PAGE_SIZE + 1))
                 .thenReturn(List.of(reservation));
 
-        List<ReservationResponse> result =
-                reservationService.getByUserId(1L);
+        ReservationPage result =
+                reservationService.getByUserId(1L, null, null);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).id()).isEqualTo(1L);
+        assertThat(result.items()).hasSize(1);
+        assertThat(result.items().get(0).id()).isEqualTo(1L);
+        assertThat(result.nextCursor()).isNull();
     }
 
     // ---------- GET ALL ----------
 
     @Test
     void shouldGetAllReservations() {
-        when(reservationRepository.findAll())
+        when(reservationRepository.findPage(ReservationFilter.none(), null, ReservationService.DEFAULT_PAGE_SIZE + 1))
                 .thenReturn(List.of(reservation));
 
-        List<ReservationResponse> result =
-                reservationService.getAll();
+        ReservationPage result =
+                reservationService.getAll(ReservationFilter.none(), null, null);
+
+        assertThat(result.items()).hasSize(1);
+        assertThat(result.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldReturnCursorWhenMoreReservationsFollow() {
+        ReservationFilter filter = new ReservationFilter(ReservationStatus.CREATED, 1L, null, FROM, TO);
+        Reservation next = withId(2L);
+        Reservation beyond = withId(3L);
+        when(reservationRepository.findPage(filter, 1L, 3))
+                .thenReturn(List.of(next, beyond));
+
+        ReservationPage result =
+                reservationService.getAll(filter, 1L, 2);
+
+        assertThat(result.items()).extracting(ReservationResponse::id).containsExactly(2L, 3L);
+        assertThat(result.nextCursor()).isNull();
+
+        when(reservationRepository.findPage(filter, 1L, 2))
+                .thenReturn(List.of(next, beyond));
+
+        result = reservationService.getAll(filter, 1L, 1);
 
-        assertThat(result).hasSize(1);
+        assertThat(result.items()).extracting(ReservationResponse::id).containsExactly(2L);
+        assertThat(result.nextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldRejectPageSizeOutOfRange() {
+        assertThatThrownBy(() -> reservationService.getAll(ReservationFilter.none(), null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reservationService.getAll(ReservationFilter.none(), null, ReservationService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(reservationRepository);
     }
 
     // ---------- CANCEL ----------
@@ -153,6 +386,7 @@ class ReservationServiceTest {
 
         assertThat(reservation.getStatus())
                 .isEqualTo(ReservationStatus.CANCELLED);
+        verify(eventPublisher).publishEvent(AvailabilityChanged.released(List.of(1L)));
     }
 
     @Test
@@ -168,5 +402,60 @@ class ReservationServiceTest {
     void shouldCancelAllReservations() {
         reservationService.cancelAll();
         verify(reservationRepository).cancelAllActive();
+        verify(eventPublisher).publishEvent(AvailabilityChanged.releasedAll());
+    }
+
+    // ---------- AVAILABILITY ----------
+
+    @Test
+    void shouldSplitRangeIntoFreeAndBookedWindows() {
+        LocalDateTime dayStart = LocalDateTime.of(2026, 1, 10, 8, 0);
+        LocalDateTime dayEnd = LocalDateTime.of(2026, 1, 10, 18, 0);
+        BookedSlot early = new BookedSlot(2L, 1L, dayStart.minusHours(1), dayStart.plusHours(1));
+        BookedSlot midday = new BookedSlot(1L, 1L, FROM, TO);
+        when(availabilityIndex.bookedBetween(1L, dayStart, dayEnd))
+                .thenReturn(List.of(early, midday));
+
+        AvailabilityResponse response =
+                reservationService.getAvailability(1L, dayStart, dayEnd);
+
+        assertThat(response.available()).isFalse();
+        assertThat(response.booked()).containsExactly(
+                new AvailabilityResponse.Window(early.from(), early.to()),
+                new AvailabilityResponse.Window(FROM, TO));
+        assertThat(response.free()).containsExactly(
+                new AvailabilityResponse.Window(dayStart.plusHours(1), FROM),
+                new AvailabilityResponse.Window(TO, dayEnd));
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void shouldReportWholeRangeFreeWhenNothingIsBooked() {
+        when(availabilityIndex.bookedBetween(1L, FROM, TO))
+                .thenReturn(List.of());
+
+        AvailabilityResponse response =
+                reservationService.getAvailability(1L, FROM, TO);
+
+        assertThat(response.available()).isTrue();
+        assertThat(response.free()).containsExactly(new AvailabilityResponse.Window(FROM, TO));
+    }
+
+    @Test
+    void shouldRejectAvailabilityRangeThatIsEmpty() {
+        assertThatThrownBy(() -> reservationService.getAvailability(1L, TO, TO))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(availabilityIndex);
+    }
+
+    private static Reservation withId(Long id) {
+        return Reservation.builder()
+                .id(id)
+                .userId(1L)
+                .resourceId(1L)
+                .startTime(FROM)
+                .endTime(TO)
+                .status(ReservationStatus.CREATED)
+                .build();
     }
-}
\ No newline at end of file
+}